@@ -29,6 +29,21 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                // Benchmarks are skipped unless run with -Pbenchmarks=true
+                it.systemProperty("benchmarks", project.findProperty("benchmarks") ?: "false")
+                // Memory budget tests write their JSON reports here
+                it.systemProperty("memoryReportDir", layout.buildDirectory.dir("reports/memory").get().asFile.path)
+                // Soak length and seed, e.g. -PsoakOps=2000000 -PsoakSeed=7
+                it.systemProperty("soakReportDir", layout.buildDirectory.dir("reports/soak").get().asFile.path)
+                project.findProperty("soakOps")?.let { ops -> it.systemProperty("soakOps", ops) }
+                project.findProperty("soakSeed")?.let { seed -> it.systemProperty("soakSeed", seed) }
+            }
+        }
+    }
 }
 
 dependencies {
@@ -37,7 +52,10 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    // Installs src/main/baseline-prof.txt on sideloaded builds too
+    implementation(libs.profileinstaller)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.todolist;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * How {@link SqliteTaskStore} stores descriptions: descriptions longer than
+ * {@link #COMPRESS_THRESHOLD} characters are kept deflated in a side table and only inflated
+ * when a single task is loaded, with a short preview in the row for the list. Shorter ones are
+ * stored and listed inline.
+ */
+final class DescriptionCodec {
+
+    /** Characters kept in the preview column; more than a row shows in its three lines. */
+    static final int PREVIEW_LENGTH = 160;
+    /** Descriptions longer than this are stored deflated. */
+    static final int COMPRESS_THRESHOLD = 512;
+
+    private DescriptionCodec() {
+    }
+
+    static boolean isCompressed(String description) {
+        return description != null && description.length() > COMPRESS_THRESHOLD;
+    }
+
+    static String preview(String description) {
+        if (description == null || description.length() <= PREVIEW_LENGTH) {
+            return description;
+        }
+        int end = PREVIEW_LENGTH;
+        // Do not split a surrogate pair
+        if (Character.isHighSurrogate(description.charAt(end - 1))) {
+            end--;
+        }
+        return description.substring(0, end);
+    }
+
+    static byte[] deflate(String description) {
+        byte[] input = description.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+            byte[] buffer = new byte[Math.min(input.length + 16, 8192)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String inflate(byte[] deflated, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            // UTF-8 needs at least one byte per char, so this is a good first guess
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+            byte[] buffer = new byte[Math.min(Math.max(length, 64), 8192)];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                out.write(buffer, 0, count);
+                if (count == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated description");
+                }
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt description", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
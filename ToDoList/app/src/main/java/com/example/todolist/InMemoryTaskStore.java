@@ -0,0 +1,120 @@
+package com.example.todolist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A {@link TaskStore} kept entirely in memory. Records are immutable and replaced atomically, so
+ * readers never block and never see a half-applied update; a batch is applied row by row.
+ * Nothing survives the process, which makes it the engine for tests and the in-memory state of
+ * {@link LogTaskStore}.
+ */
+public class InMemoryTaskStore implements TaskStore {
+
+    private final ConcurrentSkipListMap<Integer, TaskRecord> records = new ConcurrentSkipListMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    @Override
+    public long insert(Task task) {
+        int id = lastId.incrementAndGet();
+        records.put(id, TaskRecord.of(id, task));
+        return id;
+    }
+
+    @Override
+    public void updateDone(int[] ids, boolean isDone) {
+        for (int id : ids) {
+            records.computeIfPresent(id, (key, record) -> record.withDone(isDone));
+        }
+    }
+
+    @Override
+    public void updateDeleted(int[] ids, boolean isDeleted) {
+        for (int id : ids) {
+            records.computeIfPresent(id, (key, record) -> record.withDeleted(isDeleted));
+        }
+    }
+
+    @Override
+    public void delete(int[] ids) {
+        for (int id : ids) {
+            records.remove(id);
+        }
+    }
+
+    @Override
+    public void deleteAllDeleted() {
+        records.values().removeIf(record -> record.isDeleted);
+    }
+
+    @Override
+    public Task get(int id) {
+        TaskRecord record = records.get(id);
+        return record == null || record.isDeleted ? null : record.toTask();
+    }
+
+    @Override
+    public List<Task> query(int[] ids) {
+        List<Task> tasks = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            TaskRecord record = records.get(id);
+            if (record != null && !record.isDeleted) {
+                tasks.add(record.toTask());
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public List<Task> queryAll() {
+        List<Task> tasks = new ArrayList<>();
+        stream(tasks::add);
+        return tasks;
+    }
+
+    @Override
+    public void stream(Consumer<Task> consumer) {
+        for (TaskRecord record : records.values()) {
+            if (!record.isDeleted) {
+                consumer.accept(record.toTask());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Stores a record under its own id, as when replaying a log.
+     */
+    void put(TaskRecord record) {
+        records.put(record.id, record);
+        advanceLastId(record.id);
+    }
+
+    TaskRecord getRecord(int id) {
+        return records.get(id);
+    }
+
+    /**
+     * All records, soft-deleted ones included, in id order.
+     */
+    Iterable<TaskRecord> records() {
+        return records.values();
+    }
+
+    int getLastId() {
+        return lastId.get();
+    }
+
+    void advanceLastId(int id) {
+        int current = lastId.get();
+        while (id > current && !lastId.compareAndSet(current, id)) {
+            current = lastId.get();
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package com.example.todolist;
+
+import android.os.Build;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link TaskStore} backed by an append-only write-ahead log, with the current state kept in
+ * an {@link InMemoryTaskStore}.
+ *
+ * <p>A mutation is appended to the log and then applied in memory under one lock, so the log
+ * order is the apply order and readers never see a change the log does not hold. A write that
+ * fails is cut back off the end of the log, so later records are not appended after a torn
+ * frame; if even that fails the store refuses further writes. The caller then waits until its
+ * record is on disk. Writers that arrive while
+ * another writer is in {@link FileChannel#force} share the next force, so N concurrent writers
+ * pay for roughly one fsync instead of N.
+ *
+ * <p>Each record is framed as {@code [int length][int crc32][payload]}. On open the log is
+ * replayed up to the first short or corrupt frame, which is where a crash tore the last write;
+ * the rest is cut off. When the log holds mostly superseded records, or a torn tail was found,
+ * it is checkpointed: rewritten as one record per task, forced, and swapped in with a rename,
+ * so a crash during a checkpoint leaves the old log intact. The directory is forced after the
+ * rename, so the swap itself survives a crash before the log counts as durable. A checkpoint that
+ * fails keeps appending to the old log.
+ */
+public class LogTaskStore implements TaskStore {
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DONE = 2;
+    private static final byte OP_DELETED = 3;
+    private static final byte OP_DELETE = 4;
+    private static final byte OP_DELETE_ALL_DELETED = 5;
+    private static final byte OP_LAST_ID = 6;
+
+    private static final int HEADER_BYTES = 8;
+    // Small logs are never worth rewriting
+    private static final int MIN_CHECKPOINT_RECORDS = 4096;
+
+    /**
+     * Record buffer with room for the frame header in front of the payload.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        private final CRC32 crc = new CRC32();
+
+        RecordBuffer() {
+            super(256);
+        }
+
+        void begin() {
+            reset();
+            count = HEADER_BYTES;
+        }
+
+        ByteBuffer frame() {
+            crc.reset();
+            crc.update(buf, HEADER_BYTES, count - HEADER_BYTES);
+            ByteBuffer frame = ByteBuffer.wrap(buf, 0, count);
+            frame.putInt(0, count - HEADER_BYTES);
+            frame.putInt(4, (int) crc.getValue());
+            return frame;
+        }
+    }
+
+    private final File file;
+    private final InMemoryTaskStore memory = new InMemoryTaskStore();
+    private final RecordBuffer record = new RecordBuffer();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private FileChannel channel;
+    private int storedRecords;
+    private int logRecords;
+    // Raised after a failed checkpoint so a lasting failure does not rewrite the log on every write
+    private int checkpointRecords = MIN_CHECKPOINT_RECORDS;
+    // Length of the log up to the end of its last complete record
+    private long logBytes;
+    // Set when a failed write could not be cut off the log
+    private IOException failure;
+
+    // Group commit state, guarded by this
+    private long writtenSeq;
+    private long durableSeq;
+    private boolean forcing;
+    private long forceCount;
+
+    public LogTaskStore(File file) {
+        this.file = file;
+        try {
+            boolean torn = replay();
+            channel = openAppend();
+            logBytes = channel.size();
+            if (torn || needsCheckpoint()) {
+                tryCheckpoint();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long insert(Task task) {
+        long id;
+        long seq;
+        synchronized (this) {
+            TaskRecord stored = TaskRecord.of(memory.getLastId() + 1, task);
+            try {
+                writePut(stored);
+                seq = flushRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            memory.put(stored);
+            id = stored.id;
+            storedRecords++;
+            checkpointIfStale();
+        }
+        awaitDurable(seq);
+        return id;
+    }
+
+    @Override
+    public void updateDone(int[] ids, boolean isDone) {
+        long seq;
+        synchronized (this) {
+            seq = append(OP_DONE, ids, isDone);
+            memory.updateDone(ids, isDone);
+            checkpointIfStale();
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void updateDeleted(int[] ids, boolean isDeleted) {
+        long seq;
+        synchronized (this) {
+            seq = append(OP_DELETED, ids, isDeleted);
+            memory.updateDeleted(ids, isDeleted);
+            checkpointIfStale();
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void delete(int[] ids) {
+        long seq;
+        synchronized (this) {
+            seq = append(OP_DELETE, ids, false);
+            for (int id : ids) {
+                if (memory.getRecord(id) != null) {
+                    storedRecords--;
+                }
+            }
+            memory.delete(ids);
+            checkpointIfStale();
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void deleteAllDeleted() {
+        long seq;
+        synchronized (this) {
+            seq = append(OP_DELETE_ALL_DELETED, null, false);
+            memory.deleteAllDeleted();
+            storedRecords = countRecords();
+            checkpointIfStale();
+        }
+        awaitDurable(seq);
+    }
+
+    // Reads go straight to the concurrent in-memory state and do not take the log lock
+
+    @Override
+    public Task get(int id) {
+        return memory.get(id);
+    }
+
+    @Override
+    public List<Task> query(int[] ids) {
+        return memory.query(ids);
+    }
+
+    @Override
+    public List<Task> queryAll() {
+        return memory.queryAll();
+    }
+
+    @Override
+    public void stream(Consumer<Task> consumer) {
+        memory.stream(consumer);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            awaitForce();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rewrites the log as one record per stored task. Everything appended so far is durable
+     * once this returns.
+     */
+    public synchronized void checkpoint() {
+        File checkpoint = new File(file.getPath() + ".checkpoint");
+        int oldLogRecords = logRecords;
+        boolean renamed = false;
+        try {
+            awaitForce();
+            channel.close();
+            channel = new FileOutputStream(checkpoint).getChannel();
+            record.begin();
+            recordOut.writeByte(OP_LAST_ID);
+            recordOut.writeInt(memory.getLastId());
+            writeFrame();
+            int records = 0;
+            for (TaskRecord stored : memory.records()) {
+                writePut(stored);
+                writeFrame();
+                records++;
+            }
+            channel.force(true);
+            channel.close();
+            if (!checkpoint.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+            renamed = true;
+            storedRecords = records;
+            logRecords = records + 1;
+            checkpointRecords = MIN_CHECKPOINT_RECORDS;
+            channel = openAppend();
+            logBytes = channel.size();
+            syncDirectory();
+            durableSeq = writtenSeq;
+            notifyAll();
+        } catch (IOException e) {
+            if (!renamed) {
+                // The old log still holds every record; go back to appending to it
+                closeQuietly(channel);
+                checkpoint.delete();
+                logRecords = oldLogRecords;
+                checkpointRecords = 2 * logRecords;
+                try {
+                    channel = openAppend();
+                    logBytes = channel.size();
+                } catch (IOException reopen) {
+                    e.addSuppressed(reopen);
+                }
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long logSize() {
+        return file.length();
+    }
+
+    synchronized long forceCount() {
+        return forceCount;
+    }
+
+    // Appends a batch record; caller holds the lock
+    private long append(byte op, int[] ids, boolean flag) {
+        try {
+            record.begin();
+            recordOut.writeByte(op);
+            if (ids != null) {
+                recordOut.writeBoolean(flag);
+                recordOut.writeInt(ids.length);
+                for (int id : ids) {
+                    recordOut.writeInt(id);
+                }
+            }
+            return flushRecord();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writePut(TaskRecord stored) throws IOException {
+        record.begin();
+        recordOut.writeByte(OP_PUT);
+        recordOut.writeInt(stored.id);
+        recordOut.writeBoolean(stored.isDone);
+        recordOut.writeBoolean(stored.isDeleted);
+        writeString(stored.title);
+        writeString(stored.description);
+        writeString(stored.deadline);
+        writeString(stored.duration);
+    }
+
+    /**
+     * Appends the buffered record to the log and returns its sequence number. A record that
+     * fails part way is cut off again; caller holds the lock.
+     */
+    private long flushRecord() throws IOException {
+        if (failure != null) {
+            throw new IOException("The log could not be repaired after a failed write", failure);
+        }
+        try {
+            writeFrame();
+        } catch (IOException e) {
+            try {
+                channel.truncate(logBytes);
+            } catch (IOException truncate) {
+                e.addSuppressed(truncate);
+                failure = e;
+            }
+            throw e;
+        }
+        logBytes += record.size();
+        return ++writtenSeq;
+    }
+
+    // Runs once the record is applied in memory, which is what a checkpoint writes out
+    private void checkpointIfStale() {
+        if (needsCheckpoint()) {
+            tryCheckpoint();
+        }
+    }
+
+    // A checkpoint only compacts the log, so failing one must not fail the write that triggered it
+    private void tryCheckpoint() {
+        try {
+            checkpoint();
+        } catch (UncheckedIOException e) {
+            // Still appending to the old log, which holds every record
+        }
+    }
+
+    private void writeFrame() throws IOException {
+        ByteBuffer frame = record.frame();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+        logRecords++;
+    }
+
+    private boolean needsCheckpoint() {
+        return logRecords > checkpointRecords && logRecords > 2 * storedRecords;
+    }
+
+    /**
+     * Returns once the record with this sequence number is on disk. The first waiter forces the
+     * channel for everything written so far; the others wait for that force to finish.
+     */
+    private void awaitDurable(long seq) {
+        FileChannel forced;
+        long target;
+        synchronized (this) {
+            while (durableSeq < seq && forcing) {
+                waitForForce();
+            }
+            if (durableSeq >= seq) {
+                return;
+            }
+            forcing = true;
+            forced = channel;
+            target = writtenSeq;
+        }
+        boolean done = false;
+        try {
+            forced.force(false);
+            done = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            synchronized (this) {
+                forcing = false;
+                forceCount++;
+                if (done && target > durableSeq) {
+                    durableSeq = target;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    // Waits for a force in progress so the channel can be swapped or closed; caller holds the lock
+    private void awaitForce() {
+        while (forcing) {
+            waitForForce();
+        }
+    }
+
+    private void waitForForce() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the log"));
+        }
+    }
+
+    // Package-private so tests can hand out a channel that fails
+    FileChannel openAppend() throws IOException {
+        return new FileOutputStream(file, true).getChannel();
+    }
+
+    /**
+     * Forces the log's directory so a rename into it is on disk. java.nio.file needs API 26, so
+     * older devices go through Os; on the JVM, where the unit tests run, SDK_INT is 0.
+     */
+    private void syncDirectory() throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (Build.VERSION.SDK_INT > 0 && Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            try {
+                FileDescriptor fd = Os.open(directory.getPath(), OsConstants.O_RDONLY, 0);
+                try {
+                    Os.fsync(fd);
+                } finally {
+                    Os.close(fd);
+                }
+            } catch (ErrnoException e) {
+                throw e.rethrowAsIOException();
+            }
+            return;
+        }
+        try (FileChannel directoryChannel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Only the checkpoint file, which is deleted next
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            recordOut.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        recordOut.writeInt(bytes.length);
+        recordOut.write(bytes);
+    }
+
+    /**
+     * Replays the log into memory and cuts off a torn tail. Returns true if there was one.
+     */
+    private boolean replay() throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        long length = file.length();
+        long good = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (good + HEADER_BYTES <= length) {
+                int frameLength = in.readInt();
+                int checksum = in.readInt();
+                if (frameLength <= 0 || frameLength > length - good - HEADER_BYTES) {
+                    break;
+                }
+                byte[] frame = new byte[frameLength];
+                in.readFully(frame);
+                crc.reset();
+                crc.update(frame, 0, frameLength);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(frame)));
+                good += HEADER_BYTES + frameLength;
+                logRecords++;
+            }
+        }
+        storedRecords = countRecords();
+        if (good == length) {
+            return false;
+        }
+        // Drop the torn tail so new records are not appended after garbage
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(good);
+        }
+        return true;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case OP_PUT: {
+                int id = in.readInt();
+                boolean isDone = in.readBoolean();
+                boolean isDeleted = in.readBoolean();
+                memory.put(new TaskRecord(id, readString(in), readString(in), readString(in), readString(in),
+                        isDone, isDeleted));
+                break;
+            }
+            case OP_DONE:
+            case OP_DELETED:
+            case OP_DELETE: {
+                boolean flag = in.readBoolean();
+                int[] ids = new int[in.readInt()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = in.readInt();
+                }
+                if (op == OP_DONE) {
+                    memory.updateDone(ids, flag);
+                } else if (op == OP_DELETED) {
+                    memory.updateDeleted(ids, flag);
+                } else {
+                    memory.delete(ids);
+                }
+                break;
+            }
+            case OP_DELETE_ALL_DELETED:
+                memory.deleteAllDeleted();
+                break;
+            case OP_LAST_ID:
+                memory.advanceLastId(in.readInt());
+                break;
+            default:
+                throw new IOException("Unknown log record " + op + " in " + file);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int countRecords() {
+        int count = 0;
+        for (TaskRecord ignored : memory.records()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -1,38 +1,80 @@
 package com.example.todolist;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-public class MainActivity extends AppCompatActivity {
+public class MainActivity extends AppCompatActivity implements TaskSession.Listener {
 
-    Button buttonAdd;
+    Button buttonAdd, buttonUndo, buttonRedo;
+    Button buttonSelectionDone, buttonSelectionDelete, buttonSelectionCancel;
+    Button buttonRetryOpening;
+    LinearLayout layoutSelectionBar, layoutOpening;
+    ProgressBar progressBarOpening;
+    TextView textViewOpening;
+    TextView textViewSelectionCount;
     RecyclerView recyclerView;
     TaskAdapter taskAdapter;
-    ArrayList<Task> taskList;
     public static final int ADD_TASK_REQUEST = 1;
+    // Startup tracing mode: adb shell am start -n com.example.todolist/.MainActivity --ez startup_trace true
+    public static final String EXTRA_STARTUP_TRACE = "startup_trace";
+    TaskSession taskSession;
     TaskRepository taskRepository;
+    private long createNanos;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Metrics are collected in debuggable builds and in startup tracing mode
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        TaskMetrics.setEnabled(debuggable || getIntent().getBooleanExtra(EXTRA_STARTUP_TRACE, false));
+        createNanos = TaskMetrics.start();
+
+        long startNanos = TaskMetrics.beginSection(TaskMetrics.Timer.STARTUP_INFLATE);
         setContentView(R.layout.activity_main);
 
         buttonAdd = findViewById(R.id.buttonAdd);
+        buttonUndo = findViewById(R.id.buttonUndo);
+        buttonRedo = findViewById(R.id.buttonRedo);
+        layoutSelectionBar = findViewById(R.id.layoutSelectionBar);
+        textViewSelectionCount = findViewById(R.id.textViewSelectionCount);
+        buttonSelectionDone = findViewById(R.id.buttonSelectionDone);
+        buttonSelectionDelete = findViewById(R.id.buttonSelectionDelete);
+        buttonSelectionCancel = findViewById(R.id.buttonSelectionCancel);
         recyclerView = findViewById(R.id.recyclerViewTasks);
-
-        taskRepository = new TaskRepository(this);
-        taskList = new ArrayList<>(taskRepository.getAllTasks());
-        taskAdapter = new TaskAdapter(taskList, taskRepository);
+        layoutOpening = findViewById(R.id.layoutOpening);
+        progressBarOpening = findViewById(R.id.progressBarOpening);
+        textViewOpening = findViewById(R.id.textViewOpening);
+        buttonRetryOpening = findViewById(R.id.buttonRetryOpening);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        recyclerView.setAdapter(taskAdapter);
+        TaskMetrics.endSection(TaskMetrics.Timer.STARTUP_INFLATE, startNanos);
+        if (TaskMetrics.isEnabled()) {
+            onNextFrame(() -> TaskMetrics.stop(TaskMetrics.Timer.STARTUP_FIRST_FRAME, createNanos));
+        }
+
+        // Nothing can touch the tasks until the database is open and migrated
+        buttonAdd.setEnabled(false);
+        buttonUndo.setEnabled(false);
+        buttonRedo.setEnabled(false);
+        // Opens the database on first launch only; after a rotation the list is already there
+        taskSession = new ViewModelProvider(this).get(TaskSession.class);
+        taskSession.setListener(this);
 
         buttonAdd.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -41,6 +83,111 @@ public class MainActivity extends AppCompatActivity {
                 startActivityForResult(intent, ADD_TASK_REQUEST);
             }
         });
+
+        buttonUndo.setOnClickListener(v -> {
+            if (!taskAdapter.undo()) {
+                Toast.makeText(MainActivity.this, "Nothing to undo", Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        buttonRedo.setOnClickListener(v -> {
+            if (!taskAdapter.redo()) {
+                Toast.makeText(MainActivity.this, "Nothing to redo", Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        buttonRetryOpening.setOnClickListener(v -> {
+            buttonRetryOpening.setVisibility(View.GONE);
+            progressBarOpening.setVisibility(View.VISIBLE);
+            progressBarOpening.setIndeterminate(true);
+            textViewOpening.setText("Loading tasks…");
+            taskSession.retry();
+        });
+
+        buttonSelectionDone.setOnClickListener(v -> taskAdapter.markSelectedDone(true));
+        buttonSelectionDelete.setOnClickListener(v -> taskAdapter.deleteSelected());
+        buttonSelectionCancel.setOnClickListener(v -> taskAdapter.clearSelection());
+    }
+
+    @Override
+    public void onMigrationProgress(long rowsDone, long rowsTotal) {
+        int percent = (int) (100 * rowsDone / rowsTotal);
+        progressBarOpening.setIndeterminate(false);
+        progressBarOpening.setProgress(percent);
+        textViewOpening.setText("Updating tasks… " + percent + "%");
+    }
+
+    @Override
+    public void onOpenFailed(TaskSession session, RuntimeException error) {
+        progressBarOpening.setVisibility(View.GONE);
+        textViewOpening.setText("Could not open tasks: " + error.getMessage());
+        buttonRetryOpening.setVisibility(View.VISIBLE);
+    }
+
+    @Override
+    public void onOpened(TaskSession session) {
+        taskRepository = session.getRepository();
+        taskAdapter = session.getAdapter();
+        recyclerView.setAdapter(taskAdapter);
+        long bindNanos = TaskMetrics.start();
+        onNextFrame(() -> {
+            TaskMetrics.stop(TaskMetrics.Timer.STARTUP_FIRST_BIND, bindNanos);
+            TaskMetrics.stop(TaskMetrics.Timer.STARTUP_FULLY_DRAWN, createNanos);
+            reportFullyDrawn();
+            if (getIntent().getBooleanExtra(EXTRA_STARTUP_TRACE, false)) {
+                TaskMetrics.dumpToLog();
+            }
+        });
+        taskAdapter.setSelectionListener(this::showSelectionBar);
+        showSelectionBar(taskAdapter.getSelectedCount());
+
+        layoutOpening.setVisibility(View.GONE);
+        buttonAdd.setEnabled(true);
+        buttonUndo.setEnabled(true);
+        buttonRedo.setEnabled(true);
+    }
+
+    /**
+     * Runs the action once, just before the next frame is drawn.
+     */
+    private void onNextFrame(Runnable action) {
+        ViewTreeObserver observer = recyclerView.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                recyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                action.run();
+                return true;
+            }
+        });
+    }
+
+    private void showSelectionBar(int selectedCount) {
+        boolean selecting = selectedCount > 0;
+        layoutSelectionBar.setVisibility(selecting ? View.VISIBLE : View.GONE);
+        buttonAdd.setVisibility(selecting ? View.INVISIBLE : View.VISIBLE);
+        buttonUndo.setVisibility(selecting ? View.GONE : View.VISIBLE);
+        buttonRedo.setVisibility(selecting ? View.GONE : View.VISIBLE);
+        textViewSelectionCount.setText(selectedCount + " selected");
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // The session outlives a rotation and closes the database itself once the list is left
+        taskSession.setListener(null);
+        if (taskAdapter != null) {
+            taskAdapter.setSelectionListener(null);
+            // Lets go of this activity's RecyclerView so the retained adapter does not leak it
+            recyclerView.setAdapter(null);
+        }
+        if (TaskMetrics.isEnabled()) {
+            TaskMetrics.dumpToLog();
+            File file = new File(getFilesDir(), "task_metrics.txt");
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            executor.execute(() -> TaskMetrics.dumpToFile(file));
+            executor.shutdown();
+        }
     }
 
     @Override
@@ -0,0 +1,78 @@
+package com.example.todolist;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link TaskAnalytics} report pushed down to SQLite: one query over the tasks table, so
+ * no Task objects are built. Deadlines and durations are parsed in SQL exactly as
+ * {@link TaskStats} parses them; call off the UI thread.
+ */
+public class SqlTaskAnalytics {
+
+    // Rows are first grouped by their raw deadline, duration and done flag, so each distinct
+    // string is parsed once, the way TaskStats.deadlineDay and durationMinutes parse it, and the
+    // parsed lookups are joined back. OFFSET 0 keeps SQLite from flattening a lookup into the
+    // join, which would re-evaluate the whole parse for every group.
+    static final String SQL_REPORT =
+            "WITH groups AS (SELECT ifnull(" + TaskDbHelper.COLUMN_DEADLINE + ", '') AS dl,"
+                    + " ifnull(" + TaskDbHelper.COLUMN_DURATION + ", '') AS du, "
+                    + TaskDbHelper.COLUMN_IS_DONE + " = 1 AS done, count(*) AS n FROM " + TaskDbHelper.TABLE_NAME
+                    + " WHERE " + TaskDbHelper.COLUMN_IS_DELETED + " = 0 GROUP BY dl, du, done),"
+            + " fields AS (SELECT dl, p1, instr(substr(dl, p1 + 1), '/') AS q"
+                    + " FROM (SELECT DISTINCT dl, instr(dl, '/') AS p1 FROM groups)),"
+            + " texts AS (SELECT dl, p1, q, length(dl) - p1 - q AS yearLength, substr(dl, 1, p1 - 1) AS ds,"
+                    + " substr(dl, p1 + 1, q - 1) AS ms, substr(dl, p1 + q + 1) AS ys FROM fields),"
+            + " ymd AS (SELECT dl,"
+                    + " CASE WHEN p1 BETWEEN 2 AND 3 AND q BETWEEN 2 AND 3 AND yearLength = 4"
+                    + " AND ds NOT GLOB '*[^0-9]*' AND ms NOT GLOB '*[^0-9]*' AND ys NOT GLOB '*[^0-9]*'"
+                    + " AND CAST(ds AS INTEGER) BETWEEN 1 AND 31 AND CAST(ms AS INTEGER) BETWEEN 1 AND 12"
+                    + " AND CAST(ys AS INTEGER) >= 1 THEN CAST(ys AS INTEGER) END AS y,"
+                    + " CAST(ms AS INTEGER) AS m, CAST(ds AS INTEGER) AS d FROM texts),"
+            // TaskReport.epochDay; y is at least 1, so integer division is floor division here
+            + " shifted AS (SELECT dl, y - (m <= 2) AS yy, m, d FROM ymd),"
+            + " days AS (SELECT dl, (yy / 400) * 146097 + (yy % 400) * 365 + (yy % 400) / 4"
+                    + " - (yy % 400) / 100 + (153 * (m + CASE WHEN m > 2 THEN -3 ELSE 9 END) + 2) / 5 + d - 1"
+                    + " - 719468 AS day FROM shifted LIMIT -1 OFFSET 0),"
+            + " units AS (SELECT du,"
+                    + " CASE WHEN substr(t, -1) IN ('h', 'H', 'm', 'M') THEN rtrim(substr(t, 1, length(t) - 1), ' ')"
+                    + " ELSE t END AS num, CASE WHEN substr(t, -1) IN ('m', 'M') THEN 1 ELSE 60 END AS unit"
+                    + " FROM (SELECT DISTINCT du, trim(du, ' ') AS t FROM groups)),"
+            + " minutes AS (SELECT du, CASE WHEN length(num) BETWEEN 1 AND " + TaskStats.MAX_DURATION_DIGITS
+                    + " AND num NOT GLOB '*[^0-9]*' THEN CAST(num AS INTEGER) * unit ELSE 0 END AS minutes"
+                    + " FROM units LIMIT -1 OFFSET 0)"
+            + " SELECT day - ((day + 3) % 7 + 7) % 7 AS week, sum(n), sum(done * n), sum(minutes * n),"
+                    + " sum(done * minutes * n), sum(CASE WHEN NOT done AND day < CAST(? AS INTEGER) THEN n ELSE 0 END)"
+                    + " FROM groups JOIN days USING (dl) JOIN minutes USING (du) GROUP BY week ORDER BY week";
+
+    private final TaskDbHelper dbHelper;
+
+    public SqlTaskAnalytics(TaskDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    public TaskReport report(int today) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        List<TaskReport.Week> weeks = new ArrayList<>();
+        TaskReport.Week undated = new TaskReport.Week(TaskReport.NO_WEEK, 0, 0, 0, 0, 0);
+        Cursor cursor = db.rawQuery(SQL_REPORT, new String[]{String.valueOf(today)});
+        try {
+            while (cursor.moveToNext()) {
+                boolean isUndated = cursor.isNull(0);
+                TaskReport.Week week = new TaskReport.Week(isUndated ? TaskReport.NO_WEEK : cursor.getInt(0),
+                        cursor.getLong(1), cursor.getLong(2), cursor.getLong(3), cursor.getLong(4), cursor.getLong(5));
+                if (isUndated) {
+                    undated = week;
+                } else {
+                    weeks.add(week);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return new TaskReport(today, weeks, undated);
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.todolist;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * The app's SQLite database as a {@link TaskStore}. Batch operations run as one
+ * {@code ... WHERE id IN (...)} statement per chunk of ids, in a single transaction.
+ *
+ * <p>The database is opened once in write-ahead-log mode and stays open until {@link #close}.
+ * Reads take no lock and run concurrently on the pool's read connections, each seeing a
+ * consistent snapshot; writes are serialized through one writer lock, so a batch never waits
+ * on SQLite's busy handler. Every operation holds the read side of a close lock, so
+ * {@link #close} waits for operations in flight and later ones throw
+ * {@link IllegalStateException} instead of reopening the database.
+ *
+ * <p>List reads ({@link #query}, {@link #queryAll}, {@link #stream}) fetch the preview of a
+ * deflated description and the inline text of any other; {@link #get} returns the full text,
+ * inflating it if it was stored deflated.
+ */
+public class SqliteTaskStore implements TaskStore {
+    // SQLite's default limit on bound parameters per statement
+    private static final int MAX_SQL_ARGS = 999;
+    // Only deflated descriptions have a preview; the rest are short enough to list in full
+    private static final String LIST_DESCRIPTION = "ifnull(" + TaskDbHelper.COLUMN_DESCRIPTION_PREVIEW + ", "
+            + TaskDbHelper.COLUMN_DESCRIPTION + ")";
+    private static final String[] LIST_COLUMNS = {
+            TaskDbHelper.COLUMN_ID, TaskDbHelper.COLUMN_TITLE, LIST_DESCRIPTION,
+            TaskDbHelper.COLUMN_DEADLINE, TaskDbHelper.COLUMN_DURATION, TaskDbHelper.COLUMN_IS_DONE,
+            TaskDbHelper.COLUMN_DESCRIPTION_LENGTH};
+
+    private final TaskDbHelper dbHelper;
+    private final Object writeLock = new Object();
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final Lock useLock = closeLock.readLock();
+    private volatile SQLiteDatabase database;
+    // Guarded by closeLock's write lock; read under its read lock
+    private boolean closed;
+
+    public SqliteTaskStore(TaskDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    @Override
+    public long insert(Task task) {
+        useLock.lock();
+        try {
+            SQLiteDatabase db = database();
+            ContentValues values = new ContentValues();
+            values.put(TaskDbHelper.COLUMN_TITLE, task.getTitle());
+            TaskDbHelper.putDescriptionColumns(values, task.getDescription());
+            values.put(TaskDbHelper.COLUMN_DEADLINE, task.getDeadline());
+            values.put(TaskDbHelper.COLUMN_DURATION, task.getDuration());
+            values.put(TaskDbHelper.COLUMN_IS_DONE, task.isDone() ? 1 : 0);
+            if (!DescriptionCodec.isCompressed(task.getDescription())) {
+                synchronized (writeLock) {
+                    return db.insert(TaskDbHelper.TABLE_NAME, null, values);
+                }
+            }
+            // Deflate before taking the lock; the row and its text are written together
+            byte[] deflated = DescriptionCodec.deflate(task.getDescription());
+            synchronized (writeLock) {
+                db.beginTransactionNonExclusive();
+                try {
+                    long id = db.insert(TaskDbHelper.TABLE_NAME, null, values);
+                    ContentValues text = new ContentValues();
+                    text.put(TaskDbHelper.COLUMN_TASK_ID, id);
+                    text.put(TaskDbHelper.COLUMN_DEFLATED, deflated);
+                    db.insert(TaskDbHelper.TABLE_DESCRIPTIONS, null, text);
+                    db.setTransactionSuccessful();
+                    return id;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            useLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateDone(int[] ids, boolean isDone) {
+        ContentValues values = new ContentValues();
+        values.put(TaskDbHelper.COLUMN_IS_DONE, isDone ? 1 : 0);
+        updateInChunks(ids, values);
+    }
+
+    @Override
+    public void updateDeleted(int[] ids, boolean isDeleted) {
+        ContentValues values = new ContentValues();
+        values.put(TaskDbHelper.COLUMN_IS_DELETED, isDeleted ? 1 : 0);
+        updateInChunks(ids, values);
+    }
+
+    @Override
+    public void delete(int[] ids) {
+        useLock.lock();
+        try {
+            SQLiteDatabase db = database();
+            synchronized (writeLock) {
+                db.beginTransactionNonExclusive();
+                try {
+                    for (int start = 0; start < ids.length; start += MAX_SQL_ARGS) {
+                        int count = Math.min(MAX_SQL_ARGS, ids.length - start);
+                        String[] args = idArgs(ids, start, count);
+                        db.delete(TaskDbHelper.TABLE_NAME, idInClause(TaskDbHelper.COLUMN_ID, count), args);
+                        db.delete(TaskDbHelper.TABLE_DESCRIPTIONS, idInClause(TaskDbHelper.COLUMN_TASK_ID, count), args);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            useLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllDeleted() {
+        useLock.lock();
+        try {
+            SQLiteDatabase db = database();
+            synchronized (writeLock) {
+                db.beginTransactionNonExclusive();
+                try {
+                    db.delete(TaskDbHelper.TABLE_DESCRIPTIONS, TaskDbHelper.COLUMN_TASK_ID + " IN (SELECT "
+                            + TaskDbHelper.COLUMN_ID + " FROM " + TaskDbHelper.TABLE_NAME + " WHERE "
+                            + TaskDbHelper.COLUMN_IS_DELETED + "=1)", null);
+                    db.delete(TaskDbHelper.TABLE_NAME, TaskDbHelper.COLUMN_IS_DELETED + "=1", null);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            useLock.unlock();
+        }
+    }
+
+    @Override
+    public Task get(int id) {
+        useLock.lock();
+        try {
+            Task task = null;
+            SQLiteDatabase db = database();
+            Cursor cursor = db.query(TaskDbHelper.TABLE_NAME, null,
+                    TaskDbHelper.COLUMN_ID + "=? AND " + TaskDbHelper.COLUMN_IS_DELETED + "=0",
+                    new String[]{String.valueOf(id)}, null, null, null);
+            if (cursor.moveToFirst()) {
+                task = readTask(db, cursor);
+            }
+            cursor.close();
+            return task;
+        } finally {
+            useLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> query(int[] ids) {
+        useLock.lock();
+        try {
+            List<Task> tasks = new ArrayList<>(ids.length);
+            SQLiteDatabase db = database();
+            for (int start = 0; start < ids.length; start += MAX_SQL_ARGS) {
+                int count = Math.min(MAX_SQL_ARGS, ids.length - start);
+                Cursor cursor = db.query(TaskDbHelper.TABLE_NAME, LIST_COLUMNS,
+                        idInClause(TaskDbHelper.COLUMN_ID, count) + " AND " + TaskDbHelper.COLUMN_IS_DELETED + "=0",
+                        idArgs(ids, start, count), null, null, null);
+                if (cursor.moveToFirst()) {
+                    do {
+                        tasks.add(readListTask(cursor));
+                    } while (cursor.moveToNext());
+                }
+                cursor.close();
+            }
+            return tasks;
+        } finally {
+            useLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> queryAll() {
+        List<Task> tasks = new ArrayList<>();
+        stream(tasks::add);
+        return tasks;
+    }
+
+    @Override
+    public void stream(Consumer<Task> consumer) {
+        useLock.lock();
+        try {
+            SQLiteDatabase db = database();
+            Cursor cursor = db.query(TaskDbHelper.TABLE_NAME, LIST_COLUMNS, TaskDbHelper.COLUMN_IS_DELETED + "=0",
+                    null, null, null, TaskDbHelper.COLUMN_ID);
+            try {
+                if (cursor.moveToFirst()) {
+                    do {
+                        consumer.accept(readListTask(cursor));
+                    } while (cursor.moveToNext());
+                }
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            useLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                dbHelper.close();
+                database = null;
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+
+    private void updateInChunks(int[] ids, ContentValues values) {
+        useLock.lock();
+        try {
+            SQLiteDatabase db = database();
+            synchronized (writeLock) {
+                db.beginTransactionNonExclusive();
+                try {
+                    for (int start = 0; start < ids.length; start += MAX_SQL_ARGS) {
+                        int count = Math.min(MAX_SQL_ARGS, ids.length - start);
+                        db.update(TaskDbHelper.TABLE_NAME, values, idInClause(TaskDbHelper.COLUMN_ID, count),
+                                idArgs(ids, start, count));
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            useLock.unlock();
+        }
+    }
+
+    // Caller holds useLock
+    private SQLiteDatabase database() {
+        if (closed) {
+            throw new IllegalStateException("The task store is closed");
+        }
+        SQLiteDatabase db = database;
+        if (db == null) {
+            synchronized (writeLock) {
+                db = database;
+                if (db == null) {
+                    db = dbHelper.getWritableDatabase();
+                    database = db;
+                }
+            }
+        }
+        return db;
+    }
+
+    /**
+     * Reads a full row, inflating a deflated description. Returns null if the row was deleted
+     * between reading it and reading its text.
+     */
+    private static Task readTask(SQLiteDatabase db, Cursor cursor) {
+        int id = cursor.getInt(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_ID));
+        String title = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_TITLE));
+        String desc = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_DESCRIPTION));
+        String deadline = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_DEADLINE));
+        String duration = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_DURATION));
+        boolean isDone = cursor.getInt(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_IS_DONE)) == 1;
+        int length = cursor.getInt(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_DESCRIPTION_LENGTH));
+        if (desc == null && length > 0) {
+            desc = readDeflated(db, id, length);
+            if (desc == null) {
+                return null;
+            }
+        }
+        return new Task(id, title, desc, deadline, duration, isDone);
+    }
+
+    private static String readDeflated(SQLiteDatabase db, int id, int length) {
+        Cursor cursor = db.query(TaskDbHelper.TABLE_DESCRIPTIONS, new String[]{TaskDbHelper.COLUMN_DEFLATED},
+                TaskDbHelper.COLUMN_TASK_ID + "=?", new String[]{String.valueOf(id)}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? DescriptionCodec.inflate(cursor.getBlob(0), length) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Columns are in LIST_COLUMNS order
+    private static Task readListTask(Cursor cursor) {
+        String preview = cursor.getString(2);
+        boolean truncated = preview != null && cursor.getInt(6) > preview.length();
+        return new Task(cursor.getInt(0), cursor.getString(1), preview, cursor.getString(3),
+                cursor.getString(4), cursor.getInt(5) == 1, truncated);
+    }
+
+    private static String idInClause(String column, int count) {
+        StringBuilder sb = new StringBuilder(column.length() + 6 + count * 2);
+        sb.append(column).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+
+    private static String[] idArgs(int[] ids, int start, int count) {
+        String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = String.valueOf(ids[start + i]);
+        }
+        return args;
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.todolist;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Task {
+    // Counts down from -1, so no unsaved task shares an id with another or with a saved row
+    private static final AtomicInteger nextUnsavedId = new AtomicInteger(-1);
+
     private String title;
     private String description;
     private boolean isDone;
     private String deadline;
     private String duration;
     private int id;
+    private boolean descriptionPreview;
 
     public Task(int id, String title, String description, String deadline, String duration, boolean isDone) {
         this.id = id;
@@ -17,12 +23,26 @@ public class Task {
         this.isDone = isDone;
     }
 
+    /**
+     * A task loaded for the list, whose description may be only the start of the full text.
+     */
+    public Task(int id, String title, String description, String deadline, String duration, boolean isDone,
+                boolean descriptionPreview) {
+        this(id, title, description, deadline, duration, isDone);
+        this.descriptionPreview = descriptionPreview;
+    }
+
+    /**
+     * A task not saved yet. It has a negative id of its own until setId() gives it its row id.
+     */
     public Task(String title, String description, String deadline, String duration) {
-        this(-1, title, description, deadline, duration, false);
+        this(nextUnsavedId.getAndDecrement(), title, description, deadline, duration, false);
     }
 
     public String getTitle() { return title; }
     public String getDescription() { return description; }
+    /** True if getDescription() is a preview; TaskRepository.getDescription(task) has the rest. */
+    public boolean isDescriptionPreview() { return descriptionPreview; }
     public boolean isDone() { return isDone; }
     public void setDone(boolean done) { isDone = done; }
     public String getDeadline() { return deadline; }
@@ -1,74 +1,150 @@
 package com.example.todolist;
 
-import android.graphics.Paint;
-import android.view.LayoutInflater;
+import android.os.SystemClock;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Button;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder> {
+/**
+ * Shows the task list. With a repository, the list follows the repository's
+ * {@link TaskChangeBus}: the adapter's own edits are written to the repository and the rows
+ * change, with their notifications, when the batch carrying those writes is delivered. Imports
+ * and other writers reach the list the same way, with the rows they insert already loaded off
+ * the UI thread. Without a repository the adapter edits and notifies directly.
+ */
+public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder>
+        implements TaskChangeBus.Listener {
+
+    private static final int JOURNAL_CAPACITY = 1024;
+    private static final long UNDO_WINDOW_MS = 5 * 60 * 1000;
+    // Rows laid out ahead of the scroll direction
+    private static final int PREFETCH_ROWS = 12;
+
+    // Payload for isDone and selection changes: the holder is rebound in place without a change
+    // animation, and TaskRowView.bind() keeps its layouts when the Task is the one already shown
+    static final Object PAYLOAD_STATE = new Object();
+
+    public interface SelectionListener {
+        void onSelectionChanged(int selectedCount);
+    }
 
     private List<Task> taskList;
     private TaskRepository taskRepository;
+    private TaskJournal taskJournal;
+    private TaskSelection selection = new TaskSelection();
+    private TaskRowStyle rowStyle;
+    private TaskRowLayouts rowLayouts;
+    private SelectionListener selectionListener;
+    private long[] groupBuffer = new long[16];
+    private int[] positionBuffer = new int[16];
+
+    // Where the next delivery looks first for a row, and the row addTask() expects it to insert
+    private int positionHint;
+    private Task addedTask;
+    // Recorded positions of rows an undo or redo is restoring, while it is delivered
+    private Map<Integer, Integer> restorePositions;
+
+    public TaskAdapter(List<Task> taskList) {
+        this(taskList, null, null);
+    }
 
     public TaskAdapter(List<Task> taskList, TaskRepository taskRepository) {
+        this(taskList, taskRepository, null);
+    }
+
+    public TaskAdapter(List<Task> taskList, TaskRepository taskRepository, TaskJournal.PurgeListener purgeListener) {
         this.taskList = taskList;
         this.taskRepository = taskRepository;
+        this.taskJournal = new TaskJournal(JOURNAL_CAPACITY, UNDO_WINDOW_MS, purgeListener);
+        setHasStableIds(true);
+        if (taskRepository != null) {
+            // Writes made since the list was read arrive as changes to it
+            taskRepository.getChanges().subscribe(this, taskList);
+        }
+    }
+
+    /**
+     * Stops following the repository's changes.
+     */
+    public void close() {
+        if (taskRepository != null) {
+            taskRepository.getChanges().unsubscribe(this);
+        }
+    }
+
+    public void setSelectionListener(SelectionListener selectionListener) {
+        this.selectionListener = selectionListener;
     }
 
     @NonNull
     @Override
     public TaskViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.task_item, parent, false);
-        return new TaskViewHolder(view);
+        if (rowLayouts == null) {
+            rowStyle = new TaskRowStyle(parent.getContext());
+            rowLayouts = new TaskRowLayouts(rowStyle);
+        }
+        TaskRowView row = new TaskRowView(parent.getContext(), rowStyle, rowLayouts);
+        RecyclerView.LayoutParams params = new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.bottomMargin = rowStyle.rowMargin;
+        row.setLayoutParams(params);
+        return new TaskViewHolder(row, this);
     }
 
     @Override
     public void onBindViewHolder(@NonNull TaskViewHolder holder, int position) {
+        long startNanos = TaskMetrics.start();
         Task task = taskList.get(position);
+        // Rebinding the Task already shown only refreshes its done state
+        holder.row.bind(task);
+        holder.row.setActivated(selection.contains(task.getId()));
+        TaskMetrics.stop(TaskMetrics.Timer.BIND, startNanos);
+    }
 
-        holder.textViewTitle.setText(task.getTitle());
-        holder.textViewDescription.setText(task.getDescription());
-        holder.textViewDeadline.setText(task.getDeadline());
-        holder.textViewDuration.setText(task.getDuration());
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(prefetchListener);
+    }
 
-        // Mark as done
-        if (task.isDone()) {
-            holder.textViewTitle.setPaintFlags(holder.textViewTitle.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
-            holder.textViewDescription.setPaintFlags(holder.textViewDescription.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
-        } else {
-            holder.textViewTitle.setPaintFlags(holder.textViewTitle.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
-            holder.textViewDescription.setPaintFlags(holder.textViewDescription.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(prefetchListener);
+        if (rowLayouts != null) {
+            rowLayouts.shutdown();
+            rowLayouts = null;
         }
+    }
 
-        // Delete button
-        holder.buttonDelete.setOnClickListener(v -> {
-            int pos = holder.getAdapterPosition();
-            Task t = taskList.get(pos);
-            if (taskRepository != null && t.getId() != -1) {
-                taskRepository.deleteTask(t.getId());
+    private final RecyclerView.OnScrollListener prefetchListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (rowLayouts == null || !(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+                return;
             }
-            taskList.remove(pos);
-            notifyItemRemoved(pos);
-        });
-
-        // Done button
-        holder.buttonDone.setOnClickListener(v -> {
-            int pos = holder.getAdapterPosition();
-            Task t = taskList.get(pos);
-            t.setDone(!t.isDone());
-            if (taskRepository != null && t.getId() != -1) {
-                taskRepository.updateTaskIsDone(t.getId(), t.isDone());
+            LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+            if (dy >= 0) {
+                int from = layoutManager.findLastVisibleItemPosition() + 1;
+                rowLayouts.prefetch(taskList, from, from + PREFETCH_ROWS);
+            } else {
+                int to = layoutManager.findFirstVisibleItemPosition();
+                rowLayouts.prefetch(taskList, to - PREFETCH_ROWS, to);
             }
-            notifyItemChanged(pos);
-        });
+        }
+    };
+
+    @Override
+    public long getItemId(int position) {
+        // Unsaved tasks have ids of their own below zero, clear of the row ids
+        return taskList.get(position).getId();
     }
 
     @Override
@@ -76,23 +152,562 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
         return taskList.size();
     }
 
+    void onDeleteClicked(int pos) {
+        if (pos == RecyclerView.NO_POSITION) {
+            return;
+        }
+        Task t = taskList.get(pos);
+        if (isJournaled(t)) {
+            // Soft delete so the row can come back until the undo window closes
+            taskRepository.softDeleteTask(t.getId());
+            taskJournal.record(TaskJournal.OP_DELETE, t.getId(), pos, t.isDone(), now());
+            deliver(pos, t.getId());
+            return;
+        }
+        taskList.remove(pos);
+        deselect(t.getId());
+        notifyItemRemoved(pos);
+    }
+
+    void onDoneClicked(int pos) {
+        if (pos == RecyclerView.NO_POSITION) {
+            return;
+        }
+        Task t = taskList.get(pos);
+        if (isJournaled(t)) {
+            boolean isDone = !t.isDone();
+            taskRepository.updateTaskIsDone(t.getId(), isDone);
+            taskJournal.record(TaskJournal.OP_TOGGLE, t.getId(), pos, isDone, now());
+            deliver(pos, t.getId());
+            return;
+        }
+        t.setDone(!t.isDone());
+        notifyItemChanged(pos, PAYLOAD_STATE);
+    }
+
+    // Long press starts multi-select, after that a tap toggles the row
+    void onRowClicked(int pos, boolean longPress) {
+        if (pos != RecyclerView.NO_POSITION && (longPress || isSelectionMode())) {
+            toggleSelection(pos);
+        }
+    }
+
+    /**
+     * Shows a task the caller has just inserted into the repository, or an unsaved one.
+     */
     public void addTask(Task task) {
-        taskList.add(task);
-        notifyItemInserted(taskList.size() - 1);
-    }
-
-    static class TaskViewHolder extends RecyclerView.ViewHolder {
-        TextView textViewTitle, textViewDescription, textViewDeadline, textViewDuration;
-        Button buttonDelete, buttonDone;
-
-        public TaskViewHolder(@NonNull View itemView) {
-            super(itemView);
-            textViewTitle = itemView.findViewById(R.id.textViewTitle);
-            textViewDescription = itemView.findViewById(R.id.textViewDescription);
-            textViewDeadline = itemView.findViewById(R.id.textViewDeadline);
-            textViewDuration = itemView.findViewById(R.id.textViewDuration);
-            buttonDelete = itemView.findViewById(R.id.buttonDelete);
-            buttonDone = itemView.findViewById(R.id.buttonDone);
+        if (!isJournaled(task)) {
+            taskList.add(task);
+            notifyItemInserted(taskList.size() - 1);
+            return;
+        }
+        // The pending insert delivers this object rather than a copy loaded back from the store
+        addedTask = task;
+        positionHint = taskList.size();
+        taskRepository.getChanges().flush(task);
+        int pos = indexOf(task.getId(), taskList.size() - 1);
+        taskJournal.record(TaskJournal.OP_INSERT, task.getId(), pos == -1 ? taskList.size() : pos, false, now());
+    }
+
+    public boolean isSelectionMode() {
+        return !selection.isEmpty();
+    }
+
+    public int getSelectedCount() {
+        return selection.size();
+    }
+
+    public boolean isSelected(Task task) {
+        return selection.contains(task.getId());
+    }
+
+    public void toggleSelection(int position) {
+        Task task = taskList.get(position);
+        if (task.getId() < 0) {
+            return;
+        }
+        selection.toggle(task.getId());
+        notifyItemChanged(position, PAYLOAD_STATE);
+        dispatchSelectionChanged();
+    }
+
+    public void clearSelection() {
+        if (selection.isEmpty()) {
+            return;
+        }
+        int[] positions = collectSelectedPositions();
+        selection.clear();
+        notifyChangedRuns(positions, positions.length, PAYLOAD_STATE);
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * Marks every selected task done or not done with one repository call and one notification
+     * per contiguous run of rows, then leaves selection mode. Rows the repository does not hold
+     * are changed in the list only.
+     */
+    public void markSelectedDone(boolean isDone) {
+        int[] selected = collectSelectedPositions();
+        int[] positions = new int[selected.length];
+        int[] ids = new int[selected.length];
+        int count = 0;
+        int[] shown = new int[selected.length];
+        int shownCount = 0;
+        for (int position : selected) {
+            Task t = taskList.get(position);
+            if (t.isDone() != isDone && isJournaled(t)) {
+                positions[count] = position;
+                ids[count++] = t.getId();
+            } else {
+                t.setDone(isDone);
+                shown[shownCount++] = position;
+            }
+        }
+        selection.clear();
+        // Rows that change here or only lose their selection highlight; the written ones are
+        // notified on delivery
+        notifyChangedRuns(shown, shownCount, PAYLOAD_STATE);
+        if (count > 0) {
+            ids = Arrays.copyOf(ids, count);
+            taskRepository.updateTasksIsDone(ids, isDone);
+            if (count <= taskJournal.capacity()) {
+                long now = now();
+                synchronized (taskJournal) {
+                    for (int i = 0; i < count; i++) {
+                        taskJournal.record(TaskJournal.OP_TOGGLE, ids[i], positions[i], isDone, i > 0, now);
+                    }
+                }
+            }
+            deliver(positions[0], ids);
+        }
+        dispatchSelectionChanged();
+    }
+
+    /**
+     * Removes every selected task. Batches that fit in the journal are soft-deleted and can be
+     * undone as one step; larger ones are deleted right away. Rows the repository does not hold
+     * are removed from the list only, one notification per contiguous run.
+     */
+    public void deleteSelected() {
+        int[] selected = collectSelectedPositions();
+        if (selected.length == 0) {
+            return;
+        }
+        int[] positions = new int[selected.length];
+        int[] ids = new int[selected.length];
+        int count = 0;
+        int[] unsaved = new int[selected.length];
+        int unsavedCount = 0;
+        for (int position : selected) {
+            Task t = taskList.get(position);
+            if (isJournaled(t)) {
+                positions[count] = position;
+                ids[count++] = t.getId();
+            } else {
+                unsaved[unsavedCount++] = position;
+            }
+        }
+        selection.clear();
+        if (count > 0) {
+            ids = Arrays.copyOf(ids, count);
+            if (count <= taskJournal.capacity()) {
+                taskRepository.softDeleteTasks(ids);
+                long now = now();
+                synchronized (taskJournal) {
+                    for (int i = 0; i < count; i++) {
+                        taskJournal.record(TaskJournal.OP_DELETE, ids[i], positions[i], false, i > 0, now);
+                    }
+                }
+            } else {
+                taskRepository.purgeTasks(ids);
+            }
+        }
+        // Before delivery, which finds the written rows by id wherever they end up
+        removeRuns(unsaved, unsavedCount);
+        if (count > 0) {
+            deliver(positions[0], ids);
+        }
+        dispatchSelectionChanged();
+    }
+
+    public boolean canUndo() {
+        taskJournal.expire(now());
+        return taskJournal.canUndo();
+    }
+
+    public boolean canRedo() {
+        taskJournal.expire(now());
+        return taskJournal.canRedo();
+    }
+
+    /**
+     * Reverts the most recent insert, toggle or delete, or the whole batch it was part of.
+     * Returns false if there is nothing to undo.
+     */
+    public boolean undo() {
+        long now = now();
+        int count = 0;
+        // The purge thread may expire entries meanwhile; it must not split the group
+        synchronized (taskJournal) {
+            long entry;
+            while ((entry = taskJournal.undo(now)) != TaskJournal.NONE) {
+                appendToGroup(count++, entry);
+                if (!TaskJournal.chained(entry)) {
+                    break;
+                }
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+        switch (TaskJournal.op(groupBuffer[0])) {
+            case TaskJournal.OP_INSERT:
+                hideTasks(groupBuffer, count);
+                break;
+            case TaskJournal.OP_TOGGLE:
+                setTasksDone(groupBuffer, count, true);
+                break;
+            case TaskJournal.OP_DELETE:
+                showTasks(groupBuffer, count);
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Re-applies the most recently undone operation or batch. Returns false if there is nothing
+     * to redo.
+     */
+    public boolean redo() {
+        long now = now();
+        int count = 0;
+        synchronized (taskJournal) {
+            long entry = taskJournal.redo(now);
+            if (entry == TaskJournal.NONE) {
+                return false;
+            }
+            appendToGroup(count++, entry);
+            while (taskJournal.isRedoChained()) {
+                appendToGroup(count++, taskJournal.redo(now));
+            }
+        }
+        switch (TaskJournal.op(groupBuffer[0])) {
+            case TaskJournal.OP_INSERT:
+                showTasks(groupBuffer, count);
+                break;
+            case TaskJournal.OP_TOGGLE:
+                setTasksDone(groupBuffer, count, false);
+                break;
+            case TaskJournal.OP_DELETE:
+                hideTasks(groupBuffer, count);
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Closes the undo window so pending soft deletes get purged.
+     */
+    public void clearHistory() {
+        taskJournal.clear();
+    }
+
+    private boolean isJournaled(Task task) {
+        return taskRepository != null && task.getId() >= 0;
+    }
+
+    private void appendToGroup(int index, long entry) {
+        if (index == groupBuffer.length) {
+            groupBuffer = Arrays.copyOf(groupBuffer, index * 2);
+        }
+        groupBuffer[index] = entry;
+    }
+
+    private void hideTasks(long[] entries, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = TaskJournal.taskId(entries[i]);
+        }
+        taskRepository.softDeleteTasks(ids);
+        deliver(TaskJournal.position(entries[0]), ids);
+    }
+
+    private void showTasks(long[] entries, int count) {
+        int[] ids = new int[count];
+        restorePositions = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            ids[i] = TaskJournal.taskId(entries[i]);
+            restorePositions.put(ids[i], TaskJournal.position(entries[i]));
+        }
+        taskRepository.restoreTasks(ids);
+        try {
+            deliver(TaskJournal.position(entries[0]), ids);
+        } finally {
+            restorePositions = null;
+        }
+    }
+
+    private void setTasksDone(long[] entries, int count, boolean undo) {
+        int[] ids = new int[count];
+        int[] doneIds = new int[count];
+        int[] notDoneIds = new int[count];
+        int doneCount = 0;
+        int notDoneCount = 0;
+        for (int i = 0; i < count; i++) {
+            int id = TaskJournal.taskId(entries[i]);
+            ids[i] = id;
+            if (undo != TaskJournal.flag(entries[i])) {
+                doneIds[doneCount++] = id;
+            } else {
+                notDoneIds[notDoneCount++] = id;
+            }
+        }
+        if (doneCount > 0) {
+            taskRepository.updateTasksIsDone(Arrays.copyOf(doneIds, doneCount), true);
+        }
+        if (notDoneCount > 0) {
+            taskRepository.updateTasksIsDone(Arrays.copyOf(notDoneIds, notDoneCount), false);
+        }
+        deliver(TaskJournal.position(entries[0]), ids);
+    }
+
+    // Delivers the writes just made to these rows before returning; other writers' changes wait
+    // for their frame
+    private void deliver(int position, int id) {
+        positionHint = position;
+        taskRepository.getChanges().flush(id);
+    }
+
+    private void deliver(int position, int[] ids) {
+        positionHint = position;
+        taskRepository.getChanges().flush(ids);
+    }
+
+    /**
+     * Applies a batch from the repository: removals first, then done state, then rows that
+     * became live, which go back to their recorded positions when an undo restores them and to
+     * the end of the list otherwise.
+     */
+    @Override
+    public void onTaskChanges(TaskChangeBus.Batch batch) {
+        if (batch.size(TaskChangeBus.TYPE_REMOVED) > 0) {
+            int count = positionsOf(batch, TaskChangeBus.TYPE_REMOVED);
+            for (int i = 0; i < count; i++) {
+                deselect(taskList.get(positionBuffer[i]).getId());
+            }
+            removeRuns(positionBuffer, count);
+        }
+        applyDone(batch, TaskChangeBus.TYPE_DONE, true);
+        applyDone(batch, TaskChangeBus.TYPE_NOT_DONE, false);
+        if (batch.size(TaskChangeBus.TYPE_INSERTED) > 0) {
+            insertTasks(batch);
+        }
+    }
+
+    private void applyDone(TaskChangeBus.Batch batch, int type, boolean isDone) {
+        if (batch.size(type) == 0) {
+            return;
+        }
+        int count = positionsOf(batch, type);
+        for (int i = 0; i < count; i++) {
+            taskList.get(positionBuffer[i]).setDone(isDone);
+        }
+        notifyChangedRuns(positionBuffer, count, PAYLOAD_STATE);
+    }
+
+    private void insertTasks(TaskChangeBus.Batch batch) {
+        int count = batch.size(TaskChangeBus.TYPE_INSERTED);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(shown(batch.getTask(i)));
+        }
+        if (restorePositions != null) {
+            tasks = restoreInPlace(tasks);
+        }
+        if (!tasks.isEmpty()) {
+            int start = taskList.size();
+            taskList.addAll(tasks);
+            notifyItemRangeInserted(start, tasks.size());
+        }
+    }
+
+    // The object addTask() is showing in place of the copy the batch loaded
+    private Task shown(Task loaded) {
+        if (addedTask != null && addedTask.getId() == loaded.getId()) {
+            Task task = addedTask;
+            addedTask = null;
+            return task;
+        }
+        return loaded;
+    }
+
+    // Puts rows back at their recorded positions, in ascending order so each lands where it
+    // was, and returns the rows that have none
+    private List<Task> restoreInPlace(List<Task> tasks) {
+        List<Task> rest = new ArrayList<>();
+        long[] order = new long[tasks.size()];
+        int count = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Integer position = restorePositions.get(tasks.get(i).getId());
+            if (position == null) {
+                rest.add(tasks.get(i));
+            } else {
+                order[count++] = ((long) position << 32) | i;
+            }
+        }
+        Arrays.sort(order, 0, count);
+        int runStart = -1;
+        int runLength = 0;
+        for (int i = 0; i < count; i++) {
+            Task task = tasks.get((int) order[i]);
+            int pos = Math.min((int) (order[i] >>> 32), taskList.size());
+            if (runLength > 0 && pos != runStart + runLength) {
+                notifyItemRangeInserted(runStart, runLength);
+                runLength = 0;
+            }
+            if (runLength == 0) {
+                runStart = pos;
+            }
+            taskList.add(pos, task);
+            runLength++;
+        }
+        if (runLength > 0) {
+            notifyItemRangeInserted(runStart, runLength);
+        }
+        return rest;
+    }
+
+    // Fills positionBuffer with the ascending positions of the rows the batch lists under the
+    // type and returns how many. A single id is looked up from the position hint; more are
+    // matched in one pass over the list
+    private int positionsOf(TaskChangeBus.Batch batch, int type) {
+        int count = batch.size(type);
+        if (positionBuffer.length < count) {
+            positionBuffer = new int[Math.max(count, 2 * positionBuffer.length)];
+        }
+        if (count == 1) {
+            int pos = indexOf(batch.getId(type, 0), positionHint);
+            positionBuffer[0] = pos;
+            return pos == -1 ? 0 : 1;
+        }
+        int found = 0;
+        for (int i = 0; i < taskList.size() && found < count; i++) {
+            if (batch.contains(type, taskList.get(i).getId())) {
+                positionBuffer[found++] = i;
+            }
+        }
+        return found;
+    }
+
+    private int[] collectSelectedPositions() {
+        int[] positions = new int[selection.size()];
+        int count = 0;
+        for (int i = 0; i < taskList.size() && count < positions.length; i++) {
+            if (selection.contains(taskList.get(i).getId())) {
+                positions[count++] = i;
+            }
+        }
+        return count == positions.length ? positions : Arrays.copyOf(positions, count);
+    }
+
+    // positions must be sorted ascending
+    private void notifyChangedRuns(int[] positions, int count, Object payload) {
+        int i = 0;
+        while (i < count) {
+            int start = positions[i];
+            int length = 1;
+            while (i + length < count && positions[i + length] == start + length) {
+                length++;
+            }
+            notifyItemRangeChanged(start, length, payload);
+            i += length;
+        }
+    }
+
+    // positions must be sorted ascending; runs are removed back to front so earlier ones stay valid
+    private void removeRuns(int[] positions, int count) {
+        int end = count - 1;
+        while (end >= 0) {
+            int last = positions[end];
+            int length = 1;
+            while (end - length >= 0 && positions[end - length] == last - length) {
+                length++;
+            }
+            int start = last - length + 1;
+            taskList.subList(start, last + 1).clear();
+            notifyItemRangeRemoved(start, length);
+            end -= length;
+        }
+    }
+
+    private void deselect(int id) {
+        if (selection.contains(id)) {
+            selection.toggle(id);
+            dispatchSelectionChanged();
+        }
+    }
+
+    private void dispatchSelectionChanged() {
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selection.size());
+        }
+    }
+
+    // The recorded position is right unless other rows moved since; only then scan the list
+    private int indexOf(int id, int positionHint) {
+        if (positionHint >= 0 && positionHint < taskList.size() && taskList.get(positionHint).getId() == id) {
+            return positionHint;
+        }
+        for (int i = 0; i < taskList.size(); i++) {
+            if (taskList.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The journal's clock: unaffected by the user or the network changing the wall clock
+    private static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Holds a TaskRowView. The listeners are the holder itself, created once per row instead of
+     * per bind.
+     */
+    static class TaskViewHolder extends RecyclerView.ViewHolder
+            implements TaskRowView.OnActionListener, View.OnClickListener, View.OnLongClickListener {
+        final TaskRowView row;
+        private final TaskAdapter adapter;
+
+        public TaskViewHolder(@NonNull TaskRowView row, TaskAdapter adapter) {
+            super(row);
+            this.row = row;
+            this.adapter = adapter;
+            row.setOnActionListener(this);
+            row.setOnClickListener(this);
+            row.setOnLongClickListener(this);
+        }
+
+        @Override
+        public void onDoneClicked(TaskRowView row) {
+            adapter.onDoneClicked(getAdapterPosition());
+        }
+
+        @Override
+        public void onDeleteClicked(TaskRowView row) {
+            adapter.onDeleteClicked(getAdapterPosition());
+        }
+
+        @Override
+        public void onClick(View v) {
+            adapter.onRowClicked(getAdapterPosition(), false);
+        }
+
+        @Override
+        public boolean onLongClick(View v) {
+            adapter.onRowClicked(getAdapterPosition(), true);
+            return true;
         }
     }
 }
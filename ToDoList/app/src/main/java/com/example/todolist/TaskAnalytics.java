@@ -0,0 +1,125 @@
+package com.example.todolist;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Builds a {@link TaskReport} in Java on a fork-join pool. Rows are streamed from the repository
+ * in chunks; each chunk is aggregated by splitting it into {@link TaskStats} accumulators that
+ * are merged back up, while the reading thread goes on to the next chunk. Only a few chunks are
+ * in flight at a time, so memory stays flat however long the history. Call off the UI thread.
+ *
+ * <p>{@link SqlTaskAnalytics} computes the same report inside SQLite.
+ */
+public class TaskAnalytics {
+
+    static final int CHUNK_TASKS = 16_384;
+    // Below this a task aggregates its slice instead of splitting it again
+    private static final int SPLIT_TASKS = 2_048;
+
+    private final ForkJoinPool pool;
+
+    public TaskAnalytics() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public TaskAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Aggregates every live task, overdue counts relative to {@code today} (days since 1970-01-01).
+     */
+    public TaskReport report(TaskRepository repository, int today) {
+        ChunkedAggregation aggregation = new ChunkedAggregation(today, 2 * pool.getParallelism());
+        repository.streamTasks(aggregation);
+        return aggregation.finish().toReport();
+    }
+
+    /**
+     * Aggregates tasks already in memory.
+     */
+    public TaskReport report(List<Task> tasks, int today) {
+        Task[] array = tasks.toArray(new Task[0]);
+        return pool.invoke(new Aggregate(array, 0, array.length, today)).toReport();
+    }
+
+    private final class ChunkedAggregation implements Consumer<Task> {
+        private final int today;
+        private final int maxInFlight;
+        private final ArrayDeque<ForkJoinTask<TaskStats>> inFlight = new ArrayDeque<>();
+        private final TaskStats merged;
+        private Task[] chunk = new Task[CHUNK_TASKS];
+        private int size;
+
+        ChunkedAggregation(int today, int maxInFlight) {
+            this.today = today;
+            this.maxInFlight = maxInFlight;
+            this.merged = new TaskStats(today);
+        }
+
+        @Override
+        public void accept(Task task) {
+            chunk[size++] = task;
+            if (size == CHUNK_TASKS) {
+                submit();
+            }
+        }
+
+        private void submit() {
+            if (inFlight.size() == maxInFlight) {
+                // The oldest chunk is the likeliest to be done; waiting on it bounds memory
+                merged.merge(inFlight.removeFirst().join());
+            }
+            inFlight.addLast(pool.submit(new Aggregate(chunk, 0, size, today)));
+            chunk = new Task[CHUNK_TASKS];
+            size = 0;
+        }
+
+        TaskStats finish() {
+            if (size > 0) {
+                submit();
+            }
+            while (!inFlight.isEmpty()) {
+                merged.merge(inFlight.removeFirst().join());
+            }
+            return merged;
+        }
+    }
+
+    private static final class Aggregate extends RecursiveTask<TaskStats> {
+        private final Task[] tasks;
+        private final int from;
+        private final int to;
+        private final int today;
+
+        Aggregate(Task[] tasks, int from, int to, int today) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+            this.today = today;
+        }
+
+        @Override
+        protected TaskStats compute() {
+            if (to - from <= SPLIT_TASKS) {
+                TaskStats stats = new TaskStats(today);
+                for (int i = from; i < to; i++) {
+                    stats.add(tasks[i]);
+                }
+                return stats;
+            }
+            int middle = (from + to) >>> 1;
+            Aggregate left = new Aggregate(tasks, from, middle, today);
+            left.fork();
+            TaskStats right = new Aggregate(tasks, middle, to, today).compute();
+            TaskStats stats = left.join();
+            stats.merge(right);
+            return stats;
+        }
+    }
+}
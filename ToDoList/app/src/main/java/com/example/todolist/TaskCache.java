@@ -0,0 +1,247 @@
+package com.example.todolist;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded read-through cache of single tasks for {@link TaskRepository}, split into segments
+ * that each own a range of ids and a lock. Consecutive ids share a segment, so the rows a batch
+ * touches usually take only a few locks, and unrelated readers and writers never contend on one
+ * monitor.
+ *
+ * <p>Each segment evicts least recently used entries once it holds more than its share of the
+ * weight budget. An entry weighs a fixed overhead plus its description, which is what makes
+ * tasks differ in size.
+ *
+ * <p>No lock is held across a store read or write. A write drops the cached copies of its rows
+ * and moves each segment it touches to a new generation both before and after updating the
+ * store, and marks the segment as being written in between. A reader loads a miss without any
+ * lock, so other ids are not held up by the store, and caches what it loaded only if the
+ * segment is not being written and is still on the generation the reader saw before the load;
+ * a row a concurrent write changed is never put back.
+ */
+class TaskCache {
+
+    // 16 consecutive ids per range, ranges spread over 64 segments
+    private static final int RANGE_BITS = 4;
+    private static final int SEGMENTS = 64;
+    static final long DEFAULT_MAX_WEIGHT = 1024 * 1024;
+    // Rough bytes for the Task, its short strings and the map entry
+    static final int ENTRY_OVERHEAD = 160;
+
+    /**
+     * Point-in-time cache statistics.
+     */
+    static final class Stats {
+        final long hits;
+        final long misses;
+        final long evictions;
+        final long weight;
+        final LatencyHistogram loadLatency;
+
+        Stats(long hits, long misses, long evictions, long weight, LatencyHistogram loadLatency) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.weight = weight;
+            this.loadLatency = loadLatency;
+        }
+
+        double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.US,
+                    "hitRate=%.3f hits=%d misses=%d evictions=%d weight=%d loadMean=%.0fns loadP99=%dns",
+                    hitRate(), hits, misses, evictions, weight, loadLatency.getMean(),
+                    loadLatency.getPercentile(99));
+        }
+    }
+
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<Integer, Task> tasks = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+        // Advanced when a write to the segment starts and when it ends
+        long generation;
+        // Writes to the segment that are updating the store
+        int writing;
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long maxSegmentWeight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    TaskCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    TaskCache(long maxWeight) {
+        maxSegmentWeight = maxWeight / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Returns a copy of the cached task, loading and caching it on a miss. Absent tasks are not
+     * cached.
+     */
+    Task get(int id, IntFunction<Task> loader) {
+        Segment segment = segments[segmentOf(id)];
+        long generation;
+        segment.lock.lock();
+        try {
+            Task task = segment.tasks.get(id);
+            if (task != null) {
+                hits.incrementAndGet();
+                return copy(task);
+            }
+            generation = segment.generation;
+        } finally {
+            segment.lock.unlock();
+        }
+        misses.incrementAndGet();
+        long start = System.nanoTime();
+        Task task = loader.apply(id);
+        loadLatency.record(System.nanoTime() - start);
+        if (task == null) {
+            return null;
+        }
+        int weight = weigh(task);
+        segment.lock.lock();
+        try {
+            // A task bigger than the whole segment would only flush it; one a write may have
+            // changed during the load could be stale, and another reader may have cached it first
+            if (weight <= maxSegmentWeight && segment.generation == generation && segment.writing == 0
+                    && !segment.tasks.containsKey(id)) {
+                segment.tasks.put(id, task);
+                segment.weight += weight;
+                evict(segment);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        return copy(task);
+    }
+
+    /**
+     * Runs a store write for the given ids, dropping their copies before and after it.
+     */
+    void write(int[] ids, Runnable write) {
+        long mask = segmentMask(ids);
+        invalidate(mask, ids, 1);
+        try {
+            write.run();
+        } finally {
+            invalidate(mask, ids, -1);
+        }
+    }
+
+    /**
+     * Runs a store write that may touch any row, emptying the cache before and after it.
+     */
+    void writeAll(Runnable write) {
+        invalidate(-1L, null, 1);
+        try {
+            write.run();
+        } finally {
+            invalidate(-1L, null, -1);
+        }
+    }
+
+    Stats stats() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                weight += segment.weight;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), weight, loadLatency);
+    }
+
+    static int segmentOf(int id) {
+        return (id >>> RANGE_BITS) & (SEGMENTS - 1);
+    }
+
+    static int weigh(Task task) {
+        String description = task.getDescription();
+        return ENTRY_OVERHEAD + (description == null ? 0 : 2 * description.length());
+    }
+
+    // Drops least recently used entries until the segment fits its budget; caller holds the lock
+    private void evict(Segment segment) {
+        Iterator<Map.Entry<Integer, Task>> eldest = segment.tasks.entrySet().iterator();
+        while (segment.weight > maxSegmentWeight && eldest.hasNext()) {
+            segment.weight -= weigh(eldest.next().getValue());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long segmentMask(int[] ids) {
+        long mask = 0;
+        for (int id : ids) {
+            mask |= 1L << segmentOf(id);
+        }
+        return mask;
+    }
+
+    /**
+     * Moves every segment in the mask to a new generation, changes its count of writes in
+     * progress by the delta, and drops the given ids, or everything when ids is null. Each
+     * segment is locked on its own and only for this.
+     */
+    private void invalidate(long mask, int[] ids, int writingDelta) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            if ((mask & (1L << i)) == 0) {
+                continue;
+            }
+            Segment segment = segments[i];
+            segment.lock.lock();
+            try {
+                segment.generation++;
+                segment.writing += writingDelta;
+                if (ids == null) {
+                    segment.tasks.clear();
+                    segment.weight = 0;
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        if (ids == null) {
+            return;
+        }
+        for (int id : ids) {
+            Segment segment = segments[segmentOf(id)];
+            segment.lock.lock();
+            try {
+                Task removed = segment.tasks.remove(id);
+                if (removed != null) {
+                    segment.weight -= weigh(removed);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    private static Task copy(Task task) {
+        return new Task(task.getId(), task.getTitle(), task.getDescription(), task.getDeadline(),
+                task.getDuration(), task.isDone(), task.isDescriptionPreview());
+    }
+}
@@ -0,0 +1,646 @@
+package com.example.todolist;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change notifications for the rows of a {@link TaskRepository}, which publishes the id of every
+ * row it writes, from any thread. Ids are coalesced until the next frame, so a row written many
+ * times is looked at once. A background loader then reads the changed rows back and diffs them
+ * against the rows each listener shows, and the frame hands every listener a {@link Batch} of
+ * the differences, with the rows that became live already loaded. A bulk import therefore
+ * reaches the UI as a handful of range updates and the listeners' thread only applies them.
+ *
+ * <p>A batch lists at most {@link #MAX_BATCH_CHANGES} rows; the rest stay pending for the
+ * following frames. Writers never block on the loader or on deliveries.
+ *
+ * <p>Ids published before a listener subscribes are kept, and diffed against the rows the
+ * listener says it shows, so writes made while the list was loading are not lost. The UI's own
+ * writes are delivered at once with {@link #flush(int[])}. Without a {@link FrameScheduler}
+ * nothing else is delivered until {@link #flush()} is called.
+ */
+public class TaskChangeBus {
+
+    /**
+     * A row became live: inserted, or restored after a soft delete.
+     */
+    public static final int TYPE_INSERTED = 0;
+    /**
+     * A row was soft-deleted or deleted.
+     */
+    public static final int TYPE_REMOVED = 1;
+    public static final int TYPE_DONE = 2;
+    public static final int TYPE_NOT_DONE = 3;
+
+    static final int MAX_BATCH_CHANGES = 4096;
+
+    private static final int UNCHANGED = -1;
+    private static final int[] NO_IDS = new int[0];
+    private static final Task[] NO_TASKS = new Task[0];
+    // The loader thread exits after this long without a batch to prepare
+    private static final long LOADER_KEEP_ALIVE_MS = 1_000;
+
+    public interface Listener {
+        void onTaskChanges(Batch batch);
+    }
+
+    /**
+     * Runs a delivery on the listeners' thread at the start of the next frame. Called from any
+     * thread, at most once per pending delivery.
+     */
+    public interface FrameScheduler {
+        void schedule(Runnable delivery);
+    }
+
+    /**
+     * How the rows changed for one listener since its previous batch, each row under one type,
+     * ids ascending, with the rows listed as inserted already loaded.
+     */
+    public static final class Batch {
+        private final int[] ids;
+        private final int removedStart;
+        private final int doneStart;
+        private final int notDoneStart;
+        // The inserted rows, in the order of their ids
+        private final Task[] tasks;
+
+        Batch(int[] ids, int removedStart, int doneStart, int notDoneStart, Task[] tasks) {
+            this.ids = ids;
+            this.removedStart = removedStart;
+            this.doneStart = doneStart;
+            this.notDoneStart = notDoneStart;
+            this.tasks = tasks;
+        }
+
+        public int size(int type) {
+            return start(type + 1) - start(type);
+        }
+
+        public int getId(int type, int index) {
+            return ids[start(type) + index];
+        }
+
+        /**
+         * The row listed at this index under {@link #TYPE_INSERTED}, as loaded after the change.
+         */
+        public Task getTask(int index) {
+            return tasks[index];
+        }
+
+        public boolean contains(int type, int id) {
+            return Arrays.binarySearch(ids, start(type), start(type + 1), id) >= 0;
+        }
+
+        boolean isEmpty() {
+            return ids.length == 0;
+        }
+
+        boolean lists(int id) {
+            for (int type = TYPE_INSERTED; type <= TYPE_NOT_DONE; type++) {
+                if (contains(type, id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int start(int type) {
+            switch (type) {
+                case TYPE_INSERTED:
+                    return 0;
+                case TYPE_REMOVED:
+                    return removedStart;
+                case TYPE_DONE:
+                    return doneStart;
+                case TYPE_NOT_DONE:
+                    return notDoneStart;
+                default:
+                    return ids.length;
+            }
+        }
+    }
+
+    /**
+     * A listener and the rows it shows, as of the last batch prepared for it: one bit per id for
+     * live rows and one for done ones.
+     */
+    private static final class Subscription {
+        final Listener listener;
+        final BitSet live = new BitSet();
+        final BitSet done = new BitSet();
+        // Prepared for the next frame
+        Batch ready;
+
+        Subscription(Listener listener, List<Task> shown) {
+            this.listener = listener;
+            for (Task task : shown) {
+                // Rows the repository has not saved are the listener's own business
+                if (task.getId() >= 0) {
+                    live.set(task.getId());
+                    done.set(task.getId(), task.isDone());
+                }
+            }
+        }
+
+        // Records the row's state, or null when it is not live, and returns how it changed
+        int update(int id, Task row) {
+            boolean wasLive = live.get(id);
+            if (row == null) {
+                live.clear(id);
+                return wasLive ? TYPE_REMOVED : UNCHANGED;
+            }
+            boolean wasDone = done.get(id);
+            live.set(id);
+            done.set(id, row.isDone());
+            if (!wasLive) {
+                return TYPE_INSERTED;
+            }
+            if (wasDone != row.isDone()) {
+                return row.isDone() ? TYPE_DONE : TYPE_NOT_DONE;
+            }
+            return UNCHANGED;
+        }
+    }
+
+    private final FrameScheduler scheduler;
+    private final Executor loader;
+    private final Runnable delivery = this::deliverFrame;
+    private final Runnable preparation = this::prepare;
+
+    // Guarded by this
+    private TaskRepository repository;
+    private Subscription[] subscriptions = new Subscription[0];
+    private final BitSet pending = new BitSet();
+    private boolean queued;
+    // Held by the loader while it prepares and by a flush while it delivers; one at a time, so
+    // no row is diffed from an older read after a newer one
+    private boolean preparing;
+    // Sorted ids the loader is preparing
+    private int[] preparingIds = NO_IDS;
+    private boolean ready;
+    private boolean scheduled;
+    private boolean closed;
+    // How each row diffed, reused by every diff
+    private int[] diffTypes = NO_IDS;
+
+    // Used only by the thread that delivers
+    private boolean delivering;
+
+    /**
+     * A bus that delivers only when flushed, preparing batches on the flushing thread.
+     */
+    public TaskChangeBus() {
+        this(null, null);
+    }
+
+    /**
+     * Prepares batches on a background thread of its own, which exits while there is no work.
+     */
+    public TaskChangeBus(FrameScheduler scheduler) {
+        this(scheduler, newLoader());
+    }
+
+    /**
+     * @param loader runs the preparation of each batch: reading the changed rows and diffing them
+     */
+    public TaskChangeBus(FrameScheduler scheduler, Executor loader) {
+        this.scheduler = scheduler;
+        this.loader = loader;
+    }
+
+    /**
+     * Delivers on the main thread, in the Choreographer's callback for the next frame.
+     */
+    public static FrameScheduler mainThreadFrames() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        return delivery -> handler.post(() -> Choreographer.getInstance()
+                .postFrameCallback(frameTimeNanos -> delivery.run()));
+    }
+
+    private static Executor newLoader() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, LOADER_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "task-changes");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Sends the listener every change from now on, and every change still pending, as the
+     * difference from the rows it shows. Read those rows after creating the repository; when
+     * other listeners are subscribed already, read them after subscribing, since changes those
+     * listeners have been sent are not kept.
+     *
+     * @param shown the rows the listener shows; only their ids and done state are kept
+     */
+    public void subscribe(Listener listener, List<Task> shown) {
+        Subscription subscription = new Subscription(listener, shown);
+        synchronized (this) {
+            Subscription[] grown = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            grown[subscriptions.length] = subscription;
+            subscriptions = grown;
+        }
+        startPrepare();
+    }
+
+    public synchronized void unsubscribe(Listener listener) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i].listener == listener) {
+                Subscription[] shrunk = new Subscription[subscriptions.length - 1];
+                System.arraycopy(subscriptions, 0, shrunk, 0, i);
+                System.arraycopy(subscriptions, i + 1, shrunk, i, shrunk.length - i);
+                subscriptions = shrunk;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Called by the repository that publishes here, whose rows batches are loaded from.
+     */
+    synchronized void attach(TaskRepository repository) {
+        if (this.repository != null && this.repository != repository) {
+            throw new IllegalStateException("The bus already belongs to a repository");
+        }
+        this.repository = repository;
+    }
+
+    /**
+     * Stops preparing batches and drops what is pending, after waiting for a batch being
+     * prepared, which reads from the repository. Called by {@link TaskRepository#close()}.
+     */
+    synchronized void close() {
+        closed = true;
+        while (preparing) {
+            waitForPrepare();
+        }
+        pending.clear();
+        for (Subscription subscription : subscriptions) {
+            subscription.ready = null;
+        }
+        ready = false;
+    }
+
+    void publish(int id) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pending.set(id);
+        }
+        TaskMetrics.increment(TaskMetrics.Counter.CHANGES_PUBLISHED);
+        startPrepare();
+    }
+
+    void publish(int[] ids) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            for (int id : ids) {
+                pending.set(id);
+            }
+        }
+        TaskMetrics.add(TaskMetrics.Counter.CHANGES_PUBLISHED, ids.length);
+        startPrepare();
+    }
+
+    /**
+     * True while a change to the row is pending, being prepared or prepared for the next frame.
+     */
+    synchronized boolean isPending(int id) {
+        if (pending.get(id) || Arrays.binarySearch(preparingIds, id) >= 0) {
+            return true;
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.ready != null && subscription.ready.lists(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delivers the pending changes to the given rows now, on the calling thread, which must be
+     * the listeners' thread, after any batches already prepared for the next frame. Used after
+     * the UI's own writes so they show in the same frame; changes to other rows wait for their
+     * frame. The rows are read on the calling thread. Does nothing when called from a listener;
+     * changes made there go out with the next batch.
+     */
+    public void flush(int[] ids) {
+        flushRows(ids, null);
+    }
+
+    public void flush(int id) {
+        flushRows(new int[]{id}, null);
+    }
+
+    /**
+     * Like {@link #flush(int[])} for a row the caller has just inserted, which is delivered as
+     * the given object rather than a copy read back from the store.
+     */
+    public void flush(Task inserted) {
+        flushRows(new int[]{inserted.getId()}, inserted);
+    }
+
+    /**
+     * Delivers everything pending now, on the calling thread, which must be the listeners'
+     * thread, reading the changed rows there. Does nothing when called from a listener.
+     */
+    public void flush() {
+        flushRows(null, null);
+    }
+
+    // Flushes the given ids, or every pending one when ids is null
+    private void flushRows(int[] ids, Task inserted) {
+        if (delivering) {
+            return;
+        }
+        Subscription[] targets;
+        Batch[] prepared;
+        int[] taken;
+        synchronized (this) {
+            // The loader may hold earlier changes to the same rows, which must go out first
+            while (preparing) {
+                waitForPrepare();
+            }
+            preparing = true;
+            targets = subscriptions;
+            prepared = takeReady(targets);
+            // With nobody to send them to, the changes wait for the first listener
+            taken = targets.length == 0 ? NO_IDS : ids == null ? take(Integer.MAX_VALUE) : take(ids);
+        }
+        try {
+            deliver(targets, prepared);
+            if (taken.length > 0) {
+                Task[] rows = inserted != null ? new Task[]{inserted} : load(taken);
+                // Nobody else diffs while this holds preparing, so each listener can have its
+                // batch before the next is diffed
+                for (Subscription target : targets) {
+                    Batch batch;
+                    synchronized (this) {
+                        batch = diff(target, taken, rows);
+                    }
+                    deliver(target, batch);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                preparing = false;
+                notifyAll();
+            }
+        }
+        startPrepare();
+    }
+
+    // Runs in the frame the loader scheduled once its batches were ready
+    private void deliverFrame() {
+        Subscription[] targets;
+        Batch[] batches;
+        synchronized (this) {
+            scheduled = false;
+            targets = subscriptions;
+            batches = takeReady(targets);
+        }
+        deliver(targets, batches);
+        startPrepare();
+    }
+
+    // Runs on the loader: takes the oldest pending ids, reads the rows and diffs them
+    private void prepare() {
+        int[] ids;
+        synchronized (this) {
+            queued = false;
+            // A flush that got in first may have taken the changes this was queued for
+            while (preparing) {
+                waitForPrepare();
+            }
+            if (closed || ready || subscriptions.length == 0 || pending.isEmpty()) {
+                return;
+            }
+            preparing = true;
+            ids = take(MAX_BATCH_CHANGES);
+            preparingIds = ids;
+        }
+        long startNanos = TaskMetrics.start();
+        boolean schedule = false;
+        boolean unchanged = false;
+        try {
+            Task[] rows = load(ids);
+            synchronized (this) {
+                if (!closed) {
+                    for (Subscription subscription : subscriptions) {
+                        Batch batch = diff(subscription, ids, rows);
+                        if (!batch.isEmpty()) {
+                            subscription.ready = batch;
+                            ready = true;
+                        }
+                    }
+                    schedule = ready && !scheduled;
+                    scheduled |= schedule;
+                    unchanged = !ready;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                preparing = false;
+                preparingIds = NO_IDS;
+                notifyAll();
+            }
+            TaskMetrics.stop(TaskMetrics.Timer.CHANGES_PREPARE, startNanos);
+        }
+        if (schedule) {
+            scheduler.schedule(delivery);
+        } else if (unchanged) {
+            // Nothing the listeners show changed; carry on with what is left
+            startPrepare();
+        }
+    }
+
+    private void startPrepare() {
+        synchronized (this) {
+            if (scheduler == null || closed || queued || preparing || ready || subscriptions.length == 0
+                    || pending.isEmpty()) {
+                return;
+            }
+            queued = true;
+        }
+        loader.execute(preparation);
+    }
+
+    // Batches is null when nothing was prepared
+    private void deliver(Subscription[] targets, Batch[] batches) {
+        if (batches != null) {
+            for (int i = 0; i < targets.length; i++) {
+                deliver(targets[i], batches[i]);
+            }
+        }
+    }
+
+    private void deliver(Subscription target, Batch batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        long startNanos = TaskMetrics.start();
+        delivering = true;
+        try {
+            target.listener.onTaskChanges(batch);
+        } finally {
+            delivering = false;
+        }
+        TaskMetrics.stop(TaskMetrics.Timer.CHANGES_DELIVER, startNanos);
+    }
+
+    /**
+     * Reads the rows in the order of the sorted ids, leaving null the ones that are not live.
+     */
+    private Task[] load(int[] ids) {
+        Task[] rows = new Task[ids.length];
+        for (Task task : repository().getTasks(ids)) {
+            int index = Arrays.binarySearch(ids, task.getId());
+            if (index >= 0) {
+                rows[index] = task;
+            }
+        }
+        return rows;
+    }
+
+    private synchronized TaskRepository repository() {
+        if (repository == null) {
+            throw new IllegalStateException("No repository publishes on this bus");
+        }
+        return repository;
+    }
+
+    // The lowest pending ids, at most max, removed from the pending set; caller holds the lock
+    private int[] take(int max) {
+        int[] ids = new int[Math.min(max, pending.cardinality())];
+        int id = -1;
+        for (int i = 0; i < ids.length; i++) {
+            id = pending.nextSetBit(id + 1);
+            ids[i] = id;
+        }
+        if (ids.length > 0) {
+            pending.clear(0, id + 1);
+        }
+        return ids;
+    }
+
+    // The given ids that are pending, sorted and removed from the pending set; caller holds the lock
+    private int[] take(int[] ids) {
+        int[] taken = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (pending.get(id)) {
+                pending.clear(id);
+                taken[count++] = id;
+            }
+        }
+        taken = count == taken.length ? taken : Arrays.copyOf(taken, count);
+        Arrays.sort(taken);
+        return taken;
+    }
+
+    // The prepared batches in the order of targets, or null if there are none; caller holds the lock
+    private Batch[] takeReady(Subscription[] targets) {
+        if (!ready) {
+            return null;
+        }
+        Batch[] batches = new Batch[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            batches[i] = targets[i].ready;
+            targets[i].ready = null;
+        }
+        ready = false;
+        return batches;
+    }
+
+    // Caller holds the lock. Interrupts are kept for later: the batch being prepared is small
+    private void waitForPrepare() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                wait();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compares the rows read for the sorted ids, null where a row is not live, with what the
+     * subscription shows, records them as shown and returns the differences. Caller holds the
+     * lock.
+     */
+    private Batch diff(Subscription subscription, int[] ids, Task[] rows) {
+        if (diffTypes.length < ids.length) {
+            diffTypes = new int[Math.max(ids.length, 2 * diffTypes.length)];
+        }
+        int inserted = 0;
+        int removed = 0;
+        int done = 0;
+        int notDone = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int type = subscription.update(ids[i], rows[i]);
+            diffTypes[i] = type;
+            switch (type) {
+                case TYPE_INSERTED:
+                    inserted++;
+                    break;
+                case TYPE_REMOVED:
+                    removed++;
+                    break;
+                case TYPE_DONE:
+                    done++;
+                    break;
+                case TYPE_NOT_DONE:
+                    notDone++;
+                    break;
+            }
+        }
+        int removedStart = inserted;
+        int doneStart = removedStart + removed;
+        int notDoneStart = doneStart + done;
+        int[] listed = new int[notDoneStart + notDone];
+        Task[] tasks = inserted == 0 ? NO_TASKS : new Task[inserted];
+        // Each type's ids land in its own run, ascending like ids
+        int nextInserted = 0;
+        int nextRemoved = removedStart;
+        int nextDone = doneStart;
+        int nextNotDone = notDoneStart;
+        for (int i = 0; i < ids.length; i++) {
+            switch (diffTypes[i]) {
+                case TYPE_INSERTED:
+                    tasks[nextInserted] = rows[i];
+                    listed[nextInserted++] = ids[i];
+                    break;
+                case TYPE_REMOVED:
+                    listed[nextRemoved++] = ids[i];
+                    break;
+                case TYPE_DONE:
+                    listed[nextDone++] = ids[i];
+                    break;
+                case TYPE_NOT_DONE:
+                    listed[nextNotDone++] = ids[i];
+                    break;
+            }
+        }
+        return new Batch(listed, removedStart, doneStart, notDoneStart, tasks);
+    }
+}
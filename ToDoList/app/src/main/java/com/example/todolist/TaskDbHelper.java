@@ -1,12 +1,14 @@
 package com.example.todolist;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 public class TaskDbHelper extends SQLiteOpenHelper {
     public static final String DATABASE_NAME = "tasks.db";
-    public static final int DATABASE_VERSION = 1;
+    public static final int DATABASE_VERSION = 5;
 
     public static final String TABLE_NAME = "tasks";
     public static final String COLUMN_ID = "id";
@@ -15,6 +17,20 @@ public class TaskDbHelper extends SQLiteOpenHelper {
     public static final String COLUMN_DEADLINE = "deadline";
     public static final String COLUMN_DURATION = "duration";
     public static final String COLUMN_IS_DONE = "is_done";
+    public static final String COLUMN_IS_DELETED = "is_deleted";
+    // Start of a deflated description, for the list, and null otherwise; see DescriptionCodec
+    public static final String COLUMN_DESCRIPTION_PREVIEW = "description_preview";
+    public static final String COLUMN_DESCRIPTION_LENGTH = "description_length";
+
+    // Deflated descriptions too long to keep in the tasks table
+    public static final String TABLE_DESCRIPTIONS = "task_descriptions";
+    public static final String COLUMN_TASK_ID = "task_id";
+    public static final String COLUMN_DEFLATED = "deflated";
+
+    // Steps whose rows TaskMigrator has yet to rewrite, and the last id each has done
+    public static final String TABLE_MIGRATIONS = "task_migrations";
+    public static final String COLUMN_VERSION = "version";
+    public static final String COLUMN_LAST_ID = "last_id";
 
     private static final String SQL_CREATE_TABLE =
             "CREATE TABLE " + TABLE_NAME + " (" +
@@ -23,21 +39,145 @@ public class TaskDbHelper extends SQLiteOpenHelper {
                     COLUMN_DESCRIPTION + " TEXT, " +
                     COLUMN_DEADLINE + " TEXT, " +
                     COLUMN_DURATION + " TEXT, " +
-                    COLUMN_IS_DONE + " INTEGER DEFAULT 0" +
+                    COLUMN_IS_DONE + " INTEGER DEFAULT 0, " +
+                    COLUMN_IS_DELETED + " INTEGER DEFAULT 0, " +
+                    COLUMN_DESCRIPTION_PREVIEW + " TEXT, " +
+                    COLUMN_DESCRIPTION_LENGTH + " INTEGER DEFAULT 0" +
+            ");";
+
+    private static final String SQL_CREATE_DESCRIPTIONS =
+            "CREATE TABLE " + TABLE_DESCRIPTIONS + " (" +
+                    COLUMN_TASK_ID + " INTEGER PRIMARY KEY, " +
+                    COLUMN_DEFLATED + " BLOB NOT NULL" +
+            ");";
+
+    private static final String SQL_CREATE_MIGRATIONS =
+            "CREATE TABLE " + TABLE_MIGRATIONS + " (" +
+                    COLUMN_VERSION + " INTEGER PRIMARY KEY, " +
+                    COLUMN_LAST_ID + " INTEGER NOT NULL" +
             ");";
 
+    private static final TaskMigrator.Step[] STEPS = {
+            new TaskMigrator.Step(2) {
+                @Override
+                void upgradeSchema(SQLiteDatabase db) {
+                    // Soft-delete flag for undoable deletes; keeps existing rows
+                    db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_IS_DELETED + " INTEGER DEFAULT 0");
+                }
+            },
+            new TaskMigrator.Step(3) {
+                @Override
+                void upgradeSchema(SQLiteDatabase db) {
+                    db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_DESCRIPTION_PREVIEW + " TEXT");
+                    db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_DESCRIPTION_LENGTH + " INTEGER DEFAULT 0");
+                    db.execSQL(SQL_CREATE_DESCRIPTIONS);
+                }
+
+                @Override
+                String[] rowColumns() {
+                    return new String[]{COLUMN_ID, COLUMN_DESCRIPTION};
+                }
+
+                // Fills the preview and length and moves a long description to the deflated table
+                @Override
+                void migrateRow(SQLiteDatabase db, Cursor row) {
+                    if (!row.isNull(1)) {
+                        putDescription(db, row.getInt(0), row.getString(1));
+                    }
+                }
+            },
+            new TaskMigrator.Step(5) {
+                @Override
+                void upgradeSchema(SQLiteDatabase db) {
+                }
+
+                @Override
+                String[] rowColumns() {
+                    return new String[]{COLUMN_ID, COLUMN_DESCRIPTION, COLUMN_DESCRIPTION_PREVIEW};
+                }
+
+                // Inline descriptions no longer keep a copy of their start as a preview
+                @Override
+                void migrateRow(SQLiteDatabase db, Cursor row) {
+                    if (!row.isNull(1) && !row.isNull(2)) {
+                        ContentValues values = new ContentValues();
+                        values.putNull(COLUMN_DESCRIPTION_PREVIEW);
+                        db.update(TABLE_NAME, values, COLUMN_ID + "=?", new String[]{String.valueOf(row.getInt(0))});
+                    }
+                }
+            },
+    };
+
     public TaskDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Readers get their own connections and snapshots instead of waiting on the writer
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_TABLE);
+        db.execSQL(SQL_CREATE_DESCRIPTIONS);
+        db.execSQL(SQL_CREATE_MIGRATIONS);
     }
 
+    /**
+     * Runs the schema half of each step and records the steps with rows to rewrite, which
+     * {@link TaskMigrator} finishes after the database is open. Version 4 added the
+     * task_migrations table itself.
+     */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-        onCreate(db);
+        if (oldVersion < 4) {
+            db.execSQL(SQL_CREATE_MIGRATIONS);
+        }
+        for (TaskMigrator.Step step : STEPS) {
+            if (step.version > oldVersion && step.version <= newVersion) {
+                step.upgradeSchema(db);
+                if (step.rowColumns() != null) {
+                    ContentValues values = new ContentValues();
+                    values.put(COLUMN_VERSION, step.version);
+                    values.put(COLUMN_LAST_ID, 0);
+                    db.insert(TABLE_MIGRATIONS, null, values);
+                }
+            }
+        }
+    }
+
+    static TaskMigrator.Step step(int version) {
+        for (TaskMigrator.Step step : STEPS) {
+            if (step.version == version) {
+                return step;
+            }
+        }
+        throw new IllegalStateException("No migration to version " + version);
+    }
+
+    private static void putDescription(SQLiteDatabase db, int id, String description) {
+        ContentValues values = new ContentValues();
+        putDescriptionColumns(values, description);
+        db.update(TABLE_NAME, values, COLUMN_ID + "=?", new String[]{String.valueOf(id)});
+        if (DescriptionCodec.isCompressed(description)) {
+            insertDeflated(db, id, description);
+        }
+    }
+
+    /**
+     * Sets the description, preview and length columns of a tasks row. A description stored
+     * deflated leaves the description column null and gets a preview; any other is stored
+     * inline with no preview.
+     */
+    static void putDescriptionColumns(ContentValues values, String description) {
+        boolean compressed = DescriptionCodec.isCompressed(description);
+        values.put(COLUMN_DESCRIPTION, compressed ? null : description);
+        values.put(COLUMN_DESCRIPTION_PREVIEW, compressed ? DescriptionCodec.preview(description) : null);
+        values.put(COLUMN_DESCRIPTION_LENGTH, description == null ? 0 : description.length());
+    }
+
+    static void insertDeflated(SQLiteDatabase db, int id, String description) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_TASK_ID, id);
+        values.put(COLUMN_DEFLATED, DescriptionCodec.deflate(description));
+        db.insertWithOnConflict(TABLE_DESCRIPTIONS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
     }
 } 
\ No newline at end of file
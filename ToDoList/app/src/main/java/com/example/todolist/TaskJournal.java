@@ -0,0 +1,258 @@
+package com.example.todolist;
+
+/**
+ * Bounded undo/redo journal for task operations.
+ *
+ * Entries are packed into a single long (operation, flag, list position and task id) and kept
+ * in a fixed-size ring, so the journal never retains Task objects and its memory use is
+ * {@link #BYTES_PER_ENTRY} bytes per slot regardless of how long the app runs.
+ *
+ * Deleted rows stay soft-deleted in the database while their entry can still be undone. Once an
+ * entry leaves the undo window (it expires, is evicted from the ring or is dropped from the redo
+ * tail) the {@link PurgeListener} is told which rows can be removed physically. The listener is
+ * also asked to run the expiry when the oldest entry's window ends, so rows get purged on time
+ * even if nothing is recorded, undone or redone after it; that runs on the listener's thread,
+ * which is why every method is synchronized. Callers that read a whole group hold the journal's
+ * lock while they do.
+ *
+ * A batch operation is recorded as a group: every entry after the first is marked as chained to
+ * the one before it, and callers undo or redo the whole group together. Groups expire and are
+ * evicted as a unit.
+ */
+public class TaskJournal {
+
+    public static final long NONE = 0L;
+
+    public static final int OP_INSERT = 1;
+    public static final int OP_TOGGLE = 2;
+    public static final int OP_DELETE = 3;
+
+    // Two parallel long arrays: the encoded entry and the time it was recorded
+    public static final int BYTES_PER_ENTRY = 16;
+
+    private static final int OP_SHIFT = 62;
+    private static final int FLAG_SHIFT = 61;
+    private static final int CHAINED_SHIFT = 60;
+    private static final int POSITION_SHIFT = 32;
+    private static final long POSITION_MASK = 0xFFFFFFFL;
+    private static final long ID_MASK = 0xFFFFFFFFL;
+
+    public interface PurgeListener {
+        void onPurge(int taskId);
+
+        /**
+         * Runs {@code expire} on the listener's own thread after {@code delayMillis}. A listener
+         * that cannot schedule leaves expiry to the next record, undo or redo.
+         */
+        default void scheduleExpiry(Runnable expire, long delayMillis) {
+        }
+    }
+
+    private final long[] entries;
+    private final long[] timestamps;
+    private final long windowMillis;
+    private final PurgeListener purgeListener;
+
+    private int head;     // ring index of the oldest entry
+    private int size;     // number of entries in the ring
+    private int applied;  // entries [0, applied) can be undone, [applied, size) can be redone
+    // When the scheduled expiry runs, in the callers' clock, or -1 if none is scheduled
+    private long expiryDueAt = -1;
+
+    public TaskJournal(int capacity, long windowMillis, PurgeListener purgeListener) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.entries = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.windowMillis = windowMillis;
+        this.purgeListener = purgeListener;
+    }
+
+    public static long encode(int op, int taskId, int position, boolean flag) {
+        return encode(op, taskId, position, flag, false);
+    }
+
+    public static long encode(int op, int taskId, int position, boolean flag, boolean chained) {
+        return ((long) op << OP_SHIFT)
+                | ((flag ? 1L : 0L) << FLAG_SHIFT)
+                | ((chained ? 1L : 0L) << CHAINED_SHIFT)
+                | ((position & POSITION_MASK) << POSITION_SHIFT)
+                | (taskId & ID_MASK);
+    }
+
+    public static int op(long entry) {
+        return (int) (entry >>> OP_SHIFT);
+    }
+
+    public static boolean flag(long entry) {
+        return ((entry >>> FLAG_SHIFT) & 1L) != 0;
+    }
+
+    /**
+     * True if the entry belongs to the same batch as the entry recorded before it.
+     */
+    public static boolean chained(long entry) {
+        return ((entry >>> CHAINED_SHIFT) & 1L) != 0;
+    }
+
+    public static int position(long entry) {
+        return (int) ((entry >>> POSITION_SHIFT) & POSITION_MASK);
+    }
+
+    public static int taskId(long entry) {
+        return (int) (entry & ID_MASK);
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean canUndo() {
+        return applied > 0;
+    }
+
+    public synchronized boolean canRedo() {
+        return applied < size;
+    }
+
+    /**
+     * True if the next redo entry continues the group that was just redone.
+     */
+    public synchronized boolean isRedoChained() {
+        return applied < size && chained(entries[slot(applied)]);
+    }
+
+    public synchronized void record(int op, int taskId, int position, boolean flag, long now) {
+        record(op, taskId, position, flag, false, now);
+    }
+
+    /**
+     * Records one operation. Pass {@code chained} for every entry of a batch after the first; a
+     * batch must fit in {@link #capacity()} to be undoable as a whole.
+     */
+    public synchronized void record(int op, int taskId, int position, boolean flag, boolean chained, long now) {
+        if (!chained) {
+            expire(now);
+        }
+
+        // A new operation invalidates everything that could have been redone
+        for (int i = applied; i < size; i++) {
+            discardUndone(entries[slot(i)]);
+        }
+        size = applied;
+
+        if (size == entries.length) {
+            evictOldestGroup();
+        }
+        int slot = slot(size);
+        entries[slot] = encode(op, taskId, position, flag, chained && size > 0);
+        timestamps[slot] = now;
+        size++;
+        applied = size;
+        scheduleExpiry(now);
+    }
+
+    /**
+     * Steps back one operation and returns its entry, or {@link #NONE} if there is nothing left
+     * inside the undo window. The caller applies the inverse of the returned operation.
+     */
+    public synchronized long undo(long now) {
+        expire(now);
+        if (applied == 0) {
+            return NONE;
+        }
+        applied--;
+        return entries[slot(applied)];
+    }
+
+    /**
+     * Re-applies the most recently undone operation and returns its entry, or {@link #NONE}.
+     */
+    public synchronized long redo(long now) {
+        expire(now);
+        if (applied == size) {
+            return NONE;
+        }
+        return entries[slot(applied++)];
+    }
+
+    /**
+     * Drops every entry recorded before the undo window, releasing rows for purging.
+     */
+    public synchronized void expire(long now) {
+        while (size > 0 && now - timestamps[head] >= windowMillis) {
+            evictOldestGroup();
+        }
+        scheduleExpiry(now);
+    }
+
+    /**
+     * Ends the undo window for every entry, e.g. when the screen goes away.
+     */
+    public synchronized void clear() {
+        while (size > 0) {
+            evictOldest();
+        }
+    }
+
+    private void scheduleExpiry(long now) {
+        if (purgeListener == null || size == 0 || expiryDueAt >= 0) {
+            return;
+        }
+        // Expires as of the due time rather than reading a clock, so the callers' clock is used
+        long dueAt = timestamps[head] + windowMillis;
+        expiryDueAt = dueAt;
+        purgeListener.scheduleExpiry(() -> onExpiryDue(dueAt), Math.max(0, dueAt - now));
+    }
+
+    private synchronized void onExpiryDue(long dueAt) {
+        expiryDueAt = -1;
+        // Schedules the next one, for the entry that is now the oldest
+        expire(dueAt);
+    }
+
+    private void evictOldestGroup() {
+        evictOldest();
+        while (size > 0 && chained(entries[head])) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        long entry = entries[head];
+        if (applied > 0) {
+            // The operation stays in effect, so a delete becomes permanent
+            if (op(entry) == OP_DELETE) {
+                purge(entry);
+            }
+            applied--;
+        } else {
+            discardUndone(entry);
+        }
+        entries[head] = NONE;
+        head = (head + 1) % entries.length;
+        size--;
+    }
+
+    private void discardUndone(long entry) {
+        // An undone insert left a soft-deleted row behind
+        if (op(entry) == OP_INSERT) {
+            purge(entry);
+        }
+    }
+
+    private void purge(long entry) {
+        if (purgeListener != null) {
+            purgeListener.onPurge(taskId(entry));
+        }
+    }
+
+    private int slot(int offset) {
+        return (head + offset) % entries.length;
+    }
+}
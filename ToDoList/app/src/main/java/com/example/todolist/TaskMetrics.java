@@ -0,0 +1,190 @@
+package com.example.todolist;
+
+import android.os.Trace;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms for the repository, change delivery, row binding and startup. Disabled by
+ * default; while disabled {@link #start()} returns 0 and every recording call returns after a
+ * single field read. Typical use:
+ *
+ * <pre>
+ * long start = TaskMetrics.start();
+ * ...
+ * TaskMetrics.stop(TaskMetrics.Timer.BIND, start);
+ * </pre>
+ */
+public final class TaskMetrics {
+
+    private static final String TAG = "TaskMetrics";
+
+    public enum Timer {
+        INSERT_TASK("repository.insertTask"),
+        UPDATE_TASK_IS_DONE("repository.updateTaskIsDone"),
+        DELETE_TASK("repository.deleteTask"),
+        SOFT_DELETE_TASK("repository.softDeleteTask"),
+        RESTORE_TASK("repository.restoreTask"),
+        PURGE_TASKS("repository.purgeTasks"),
+        UPDATE_TASKS_IS_DONE("repository.updateTasksIsDone"),
+        SOFT_DELETE_TASKS("repository.softDeleteTasks"),
+        RESTORE_TASKS("repository.restoreTasks"),
+        PURGE_DELETED_TASKS("repository.purgeDeletedTasks"),
+        GET_TASK("repository.getTask"),
+        GET_TASKS("repository.getTasks"),
+        GET_ALL_TASKS("repository.getAllTasks"),
+        BIND("adapter.bind"),
+        CHANGES_DELIVER("changes.deliver"),
+        CHANGES_PREPARE("changes.prepare"),
+        STARTUP_INFLATE("startup.inflate"),
+        STARTUP_FIRST_FRAME("startup.firstFrame"),
+        STARTUP_DB_OPEN("startup.dbOpen"),
+        STARTUP_PURGE("startup.purge"),
+        STARTUP_LOAD("startup.load"),
+        STARTUP_FIRST_BIND("startup.firstBind"),
+        STARTUP_FULLY_DRAWN("startup.fullyDrawn");
+
+        final String label;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        Timer(String label) {
+            this.label = label;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    public enum Counter {
+        TASKS_LOADED("repository.tasksLoaded"),
+        CHANGES_PUBLISHED("changes.published"),
+        LAYOUTS_BUILT_ON_BIND("rows.layoutsBuiltOnBind"),
+        LAYOUTS_PREFETCHED("rows.layoutsPrefetched");
+
+        final String label;
+        final AtomicLong value = new AtomicLong();
+
+        Counter(String label) {
+            this.label = label;
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    private static volatile boolean enabled;
+
+    private TaskMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        TaskMetrics.enabled = enabled;
+    }
+
+    /**
+     * Returns a start timestamp for {@link #stop}, or 0 while disabled.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Timer timer, long start) {
+        if (start != 0) {
+            timer.histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Like {@link #start()}, and also opens a trace section named after the timer so the phase
+     * shows in a system trace. Close it with {@link #endSection} on the same thread.
+     */
+    public static long beginSection(Timer timer) {
+        if (!enabled) {
+            return 0;
+        }
+        Trace.beginSection(timer.label);
+        return System.nanoTime();
+    }
+
+    public static void endSection(Timer timer, long start) {
+        if (start != 0) {
+            timer.histogram.record(System.nanoTime() - start);
+            Trace.endSection();
+        }
+    }
+
+    public static void increment(Counter counter) {
+        if (enabled) {
+            counter.value.incrementAndGet();
+        }
+    }
+
+    public static void add(Counter counter, long delta) {
+        if (enabled) {
+            counter.value.addAndGet(delta);
+        }
+    }
+
+    public static void reset() {
+        for (Timer timer : Timer.values()) {
+            timer.histogram.reset();
+        }
+        for (Counter counter : Counter.values()) {
+            counter.value.set(0);
+        }
+    }
+
+    /**
+     * Writes one line per metric that has recorded anything; latencies are in microseconds.
+     */
+    public static void dump(PrintWriter out) {
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram histogram = timer.histogram;
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            out.println(String.format(Locale.US,
+                    "%s count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+                    timer.label, histogram.getCount(), histogram.getMean() / 1000.0,
+                    histogram.getPercentile(50) / 1000.0, histogram.getPercentile(90) / 1000.0,
+                    histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+        }
+        for (Counter counter : Counter.values()) {
+            if (counter.get() != 0) {
+                out.println(counter.label + " " + counter.get());
+            }
+        }
+        out.flush();
+    }
+
+    public static void dumpToLog() {
+        StringWriter text = new StringWriter();
+        dump(new PrintWriter(text));
+        for (String line : text.toString().split("\n")) {
+            if (!line.isEmpty()) {
+                Log.i(TAG, line);
+            }
+        }
+    }
+
+    public static void dumpToFile(File file) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            dump(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write " + file, e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.todolist;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Opens tasks.db and finishes its migrations; call it off the UI thread. Schema changes run in
+ * {@link TaskDbHelper#onUpgrade}, which also records every step that has rows to rewrite. The
+ * migrator then rewrites those rows a chunk at a time, each chunk in its own transaction together
+ * with the step's position, so a killed migration resumes where it stopped and never holds one
+ * transaction over the whole table.
+ */
+public class TaskMigrator {
+
+    public interface ProgressListener {
+        /**
+         * Called on the migrating thread before the first chunk and after each committed one.
+         */
+        void onProgress(long rowsDone, long rowsTotal);
+    }
+
+    /**
+     * One schema version. {@link #upgradeSchema} runs in the open helper's upgrade transaction
+     * and has to be quick; a step that rewrites rows also returns the columns it reads, and
+     * {@link #migrateRow} is then called for every tasks row in id order.
+     */
+    abstract static class Step {
+        final int version;
+
+        Step(int version) {
+            this.version = version;
+        }
+
+        abstract void upgradeSchema(SQLiteDatabase db);
+
+        /**
+         * Columns of the tasks table that migrateRow reads, the id first, or null for none.
+         */
+        String[] rowColumns() {
+            return null;
+        }
+
+        void migrateRow(SQLiteDatabase db, Cursor row) {
+        }
+    }
+
+    static final int DEFAULT_CHUNK_ROWS = 2_000;
+
+    private final TaskDbHelper dbHelper;
+    private final int chunkRows;
+
+    public TaskMigrator(TaskDbHelper dbHelper) {
+        this(dbHelper, DEFAULT_CHUNK_ROWS);
+    }
+
+    TaskMigrator(TaskDbHelper dbHelper, int chunkRows) {
+        this.dbHelper = dbHelper;
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Opens the database, upgrading its schema, and rewrites the rows of every pending step.
+     */
+    public void run(ProgressListener listener) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        int[] versions;
+        long[] lastIds;
+        Cursor cursor = db.query(TaskDbHelper.TABLE_MIGRATIONS,
+                new String[]{TaskDbHelper.COLUMN_VERSION, TaskDbHelper.COLUMN_LAST_ID},
+                null, null, null, null, TaskDbHelper.COLUMN_VERSION);
+        try {
+            versions = new int[cursor.getCount()];
+            lastIds = new long[versions.length];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                versions[i] = cursor.getInt(0);
+                lastIds[i] = cursor.getLong(1);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        long total = 0;
+        for (long lastId : lastIds) {
+            total += DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_NAME,
+                    TaskDbHelper.COLUMN_ID + ">?", new String[]{String.valueOf(lastId)});
+        }
+        long done = 0;
+        listener.onProgress(done, total);
+        for (int i = 0; i < versions.length; i++) {
+            Step step = TaskDbHelper.step(versions[i]);
+            long lastId = lastIds[i];
+            int rows;
+            do {
+                db.beginTransaction();
+                try {
+                    rows = 0;
+                    // A fresh query per chunk: rows the step rewrites cannot move a cursor's window
+                    Cursor chunk = db.query(TaskDbHelper.TABLE_NAME, step.rowColumns(),
+                            TaskDbHelper.COLUMN_ID + ">?", new String[]{String.valueOf(lastId)},
+                            null, null, TaskDbHelper.COLUMN_ID, String.valueOf(chunkRows));
+                    try {
+                        while (chunk.moveToNext()) {
+                            step.migrateRow(db, chunk);
+                            lastId = chunk.getLong(0);
+                            rows++;
+                        }
+                    } finally {
+                        chunk.close();
+                    }
+                    String[] version = {String.valueOf(step.version)};
+                    if (rows < chunkRows) {
+                        db.delete(TaskDbHelper.TABLE_MIGRATIONS, TaskDbHelper.COLUMN_VERSION + "=?", version);
+                    } else {
+                        ContentValues values = new ContentValues();
+                        values.put(TaskDbHelper.COLUMN_LAST_ID, lastId);
+                        db.update(TaskDbHelper.TABLE_MIGRATIONS, values, TaskDbHelper.COLUMN_VERSION + "=?", version);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                done += rows;
+                listener.onProgress(done, total);
+            } while (rows == chunkRows);
+        }
+    }
+}
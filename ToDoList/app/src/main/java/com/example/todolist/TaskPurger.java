@@ -0,0 +1,84 @@
+package com.example.todolist;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects ids of soft-deleted tasks whose undo window has passed and removes them from the
+ * database in batches on a background thread. The same thread runs the journal's expiry when a
+ * window ends, so rows are purged on time while the user does nothing.
+ */
+public class TaskPurger implements TaskJournal.PurgeListener {
+
+    private static final int BATCH_SIZE = 64;
+    private static final long FLUSH_DELAY_MS = 2000;
+
+    private final TaskRepository taskRepository;
+    private final ScheduledThreadPoolExecutor executor;
+    private final int[] pending = new int[BATCH_SIZE];
+    private int pendingCount;
+    private boolean flushScheduled;
+
+    public TaskPurger(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+        this.executor = new ScheduledThreadPoolExecutor(1);
+        // A pending expiry must not outlive the repository that shutdown(Runnable) closes
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @Override
+    public synchronized void onPurge(int taskId) {
+        if (executor.isShutdown()) {
+            // Left soft-deleted; TaskRepository.purgeDeletedTasks() removes it on the next launch
+            return;
+        }
+        pending[pendingCount++] = taskId;
+        if (pendingCount == BATCH_SIZE) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void scheduleExpiry(Runnable expire, long delayMillis) {
+        if (!executor.isShutdown()) {
+            executor.schedule(expire, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void flush() {
+        flushScheduled = false;
+        if (pendingCount == 0) {
+            return;
+        }
+        final int[] batch = Arrays.copyOf(pending, pendingCount);
+        pendingCount = 0;
+        if (executor.isShutdown()) {
+            taskRepository.purgeTasks(batch);
+        } else {
+            executor.execute(() -> taskRepository.purgeTasks(batch));
+        }
+    }
+
+    /**
+     * Writes out whatever is pending and lets queued batches finish before the thread exits.
+     */
+    public void shutdown() {
+        shutdown(null);
+    }
+
+    /**
+     * Like {@link #shutdown()}, then runs {@code afterLastBatch} on the purge thread once the
+     * queued batches are written, e.g. to close the repository they write to.
+     */
+    public void shutdown(Runnable afterLastBatch) {
+        flush();
+        if (afterLastBatch != null) {
+            executor.execute(afterLastBatch);
+        }
+        executor.shutdown();
+    }
+}
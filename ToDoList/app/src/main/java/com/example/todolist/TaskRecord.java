@@ -0,0 +1,45 @@
+package com.example.todolist;
+
+/**
+ * Immutable stored form of a task, including the soft-delete flag the Task model does not carry.
+ * Used by the engines that keep tasks in memory.
+ */
+final class TaskRecord {
+    final int id;
+    final String title;
+    final String description;
+    final String deadline;
+    final String duration;
+    final boolean isDone;
+    final boolean isDeleted;
+
+    TaskRecord(int id, String title, String description, String deadline, String duration,
+               boolean isDone, boolean isDeleted) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.deadline = deadline;
+        this.duration = duration;
+        this.isDone = isDone;
+        this.isDeleted = isDeleted;
+    }
+
+    static TaskRecord of(int id, Task task) {
+        return new TaskRecord(id, task.getTitle(), task.getDescription(), task.getDeadline(),
+                task.getDuration(), task.isDone(), false);
+    }
+
+    TaskRecord withDone(boolean isDone) {
+        return isDone == this.isDone ? this
+                : new TaskRecord(id, title, description, deadline, duration, isDone, isDeleted);
+    }
+
+    TaskRecord withDeleted(boolean isDeleted) {
+        return isDeleted == this.isDeleted ? this
+                : new TaskRecord(id, title, description, deadline, duration, isDone, isDeleted);
+    }
+
+    Task toTask() {
+        return new Task(id, title, description, deadline, duration, isDone);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.todolist;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Completion, planned workload and overdue counts per deadline week, as computed by
+ * {@link TaskAnalytics} or {@link SqlTaskAnalytics}. Immutable. Days are counted from
+ * 1970-01-01 and weeks start on Monday.
+ */
+public final class TaskReport {
+
+    /**
+     * The week start of the totals and of the tasks without a readable deadline.
+     */
+    public static final int NO_WEEK = Integer.MIN_VALUE;
+
+    public static final class Week {
+        private final int weekStart;
+        private final long tasks;
+        private final long done;
+        private final long plannedMinutes;
+        private final long completedMinutes;
+        private final long overdue;
+
+        Week(int weekStart, long tasks, long done, long plannedMinutes, long completedMinutes, long overdue) {
+            this.weekStart = weekStart;
+            this.tasks = tasks;
+            this.done = done;
+            this.plannedMinutes = plannedMinutes;
+            this.completedMinutes = completedMinutes;
+            this.overdue = overdue;
+        }
+
+        /**
+         * Day of the Monday that starts the week, or {@link #NO_WEEK}.
+         */
+        public int getWeekStart() {
+            return weekStart;
+        }
+
+        public long getTasks() {
+            return tasks;
+        }
+
+        public long getDone() {
+            return done;
+        }
+
+        public double getCompletionRate() {
+            return tasks == 0 ? 0 : (double) done / tasks;
+        }
+
+        /**
+         * Sum of the durations of all tasks; durations that do not parse count as 0.
+         */
+        public long getPlannedMinutes() {
+            return plannedMinutes;
+        }
+
+        /**
+         * Sum of the durations of the done tasks.
+         */
+        public long getCompletedMinutes() {
+            return completedMinutes;
+        }
+
+        /**
+         * Tasks not done whose deadline is before the report's day.
+         */
+        public long getOverdue() {
+            return overdue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Week)) {
+                return false;
+            }
+            Week other = (Week) o;
+            return weekStart == other.weekStart && tasks == other.tasks && done == other.done
+                    && plannedMinutes == other.plannedMinutes && completedMinutes == other.completedMinutes
+                    && overdue == other.overdue;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (31 * (31 * weekStart + tasks) + done);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d/%d done, %d/%d min, %d overdue",
+                    weekStart == NO_WEEK ? "-" : formatDay(weekStart), done, tasks, completedMinutes, plannedMinutes,
+                    overdue);
+        }
+    }
+
+    private final int today;
+    private final List<Week> weeks;
+    private final Week undated;
+    private final Week total;
+
+    /**
+     * @param weeks sorted by week start, without the undated tasks
+     */
+    TaskReport(int today, List<Week> weeks, Week undated) {
+        this.today = today;
+        this.weeks = Collections.unmodifiableList(weeks);
+        this.undated = undated;
+        long tasks = undated.tasks, done = undated.done, planned = undated.plannedMinutes;
+        long completed = undated.completedMinutes, overdue = undated.overdue;
+        for (Week week : weeks) {
+            tasks += week.tasks;
+            done += week.done;
+            planned += week.plannedMinutes;
+            completed += week.completedMinutes;
+            overdue += week.overdue;
+        }
+        this.total = new Week(NO_WEEK, tasks, done, planned, completed, overdue);
+    }
+
+    /**
+     * The day overdue counts are relative to.
+     */
+    public int getToday() {
+        return today;
+    }
+
+    /**
+     * Weeks that have at least one task, oldest first.
+     */
+    public List<Week> getWeeks() {
+        return weeks;
+    }
+
+    /**
+     * Tasks whose deadline is missing or not a d/M/yyyy date.
+     */
+    public Week getUndated() {
+        return undated;
+    }
+
+    public Week getTotal() {
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TaskReport)) {
+            return false;
+        }
+        TaskReport other = (TaskReport) o;
+        return today == other.today && weeks.equals(other.weeks) && undated.equals(other.undated);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * weeks.hashCode() + undated.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskReport{total=" + total + ", undated=" + undated + ", weeks=" + weeks.size() + "}";
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date. A day past the end of its month
+     * rolls over into the next one, the way SQLite's date functions treat it.
+     */
+    public static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * The Monday on or before the day.
+     */
+    public static int weekStart(int epochDay) {
+        return epochDay - Math.floorMod(epochDay + 3, 7);
+    }
+
+    static String formatDay(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month, day);
+    }
+}
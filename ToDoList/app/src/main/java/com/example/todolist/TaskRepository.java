@@ -1,64 +1,240 @@
 package com.example.todolist;
 
-import android.content.ContentValues;
 import android.content.Context;
-import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Thread-safe access to tasks. Reads run concurrently; writes are serialized by the store, and
+ * the single-task cache is guarded per id range by {@link TaskCache}. Every write that changes
+ * which rows are live, or their done state, is published on {@link #getChanges()}.
+ */
 public class TaskRepository {
-    private TaskDbHelper dbHelper;
 
+    private final TaskStore taskStore;
+    private final TaskCache taskCache;
+    private final TaskChangeBus changes;
+
+    /**
+     * Opens tasks.db on first use without finishing row migrations; run a {@link TaskMigrator}
+     * first when the database may be from an older version.
+     */
     public TaskRepository(Context context) {
-        dbHelper = new TaskDbHelper(context);
+        this(new SqliteTaskStore(new TaskDbHelper(context)));
+    }
+
+    public TaskRepository(TaskStore taskStore) {
+        this(taskStore, TaskCache.DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param cacheWeight approximate bytes of tasks {@link #getTask} may keep cached
+     */
+    public TaskRepository(TaskStore taskStore, long cacheWeight) {
+        this(taskStore, cacheWeight, new TaskChangeBus());
+    }
+
+    /**
+     * @param changes where writes are published; the other constructors use one that delivers
+     *                only on {@link TaskChangeBus#flush()}
+     */
+    public TaskRepository(TaskStore taskStore, TaskChangeBus changes) {
+        this(taskStore, TaskCache.DEFAULT_MAX_WEIGHT, changes);
+    }
+
+    public TaskRepository(TaskStore taskStore, long cacheWeight, TaskChangeBus changes) {
+        this.taskStore = taskStore;
+        this.taskCache = new TaskCache(cacheWeight);
+        this.changes = changes;
+        // Batches load the rows they insert from here
+        changes.attach(this);
+    }
+
+    public TaskChangeBus getChanges() {
+        return changes;
     }
 
     public long insertTask(Task task) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(TaskDbHelper.COLUMN_TITLE, task.getTitle());
-        values.put(TaskDbHelper.COLUMN_DESCRIPTION, task.getDescription());
-        values.put(TaskDbHelper.COLUMN_DEADLINE, task.getDeadline());
-        values.put(TaskDbHelper.COLUMN_DURATION, task.getDuration());
-        values.put(TaskDbHelper.COLUMN_IS_DONE, task.isDone() ? 1 : 0);
-        long id = db.insert(TaskDbHelper.TABLE_NAME, null, values);
-        db.close();
-        return id;
+        long startNanos = TaskMetrics.start();
+        try {
+            long id = taskStore.insert(task);
+            changes.publish((int) id);
+            return id;
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.INSERT_TASK, startNanos);
+        }
     }
 
     public void updateTaskIsDone(int id, boolean isDone) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(TaskDbHelper.COLUMN_IS_DONE, isDone ? 1 : 0);
-        db.update(TaskDbHelper.TABLE_NAME, values, TaskDbHelper.COLUMN_ID + "=?", new String[]{String.valueOf(id)});
-        db.close();
+        long startNanos = TaskMetrics.start();
+        try {
+            int[] ids = {id};
+            taskCache.write(ids, () -> taskStore.updateDone(ids, isDone));
+            changes.publish(id);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.UPDATE_TASK_IS_DONE, startNanos);
+        }
     }
 
     public void deleteTask(int id) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        db.delete(TaskDbHelper.TABLE_NAME, TaskDbHelper.COLUMN_ID + "=?", new String[]{String.valueOf(id)});
-        db.close();
+        long startNanos = TaskMetrics.start();
+        try {
+            int[] ids = {id};
+            taskCache.write(ids, () -> taskStore.delete(ids));
+            changes.publish(id);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.DELETE_TASK, startNanos);
+        }
+    }
+
+    /**
+     * Hides a task without removing its row, so the delete can still be undone.
+     */
+    public void softDeleteTask(int id) {
+        long startNanos = TaskMetrics.start();
+        try {
+            int[] ids = {id};
+            taskCache.write(ids, () -> taskStore.updateDeleted(ids, true));
+            changes.publish(id);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.SOFT_DELETE_TASK, startNanos);
+        }
+    }
+
+    public void restoreTask(int id) {
+        long startNanos = TaskMetrics.start();
+        try {
+            int[] ids = {id};
+            taskCache.write(ids, () -> taskStore.updateDeleted(ids, false));
+            changes.publish(id);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.RESTORE_TASK, startNanos);
+        }
+    }
+
+    /**
+     * Physically removes the given rows in one transaction.
+     */
+    public void purgeTasks(int[] ids) {
+        long startNanos = TaskMetrics.start();
+        try {
+            taskCache.write(ids, () -> taskStore.delete(ids));
+            changes.publish(ids);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.PURGE_TASKS, startNanos);
+        }
+    }
+
+    /**
+     * Sets isDone on many rows in a single store operation.
+     */
+    public void updateTasksIsDone(int[] ids, boolean isDone) {
+        long startNanos = TaskMetrics.start();
+        try {
+            taskCache.write(ids, () -> taskStore.updateDone(ids, isDone));
+            changes.publish(ids);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.UPDATE_TASKS_IS_DONE, startNanos);
+        }
+    }
+
+    public void softDeleteTasks(int[] ids) {
+        long startNanos = TaskMetrics.start();
+        try {
+            taskCache.write(ids, () -> taskStore.updateDeleted(ids, true));
+            changes.publish(ids);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.SOFT_DELETE_TASKS, startNanos);
+        }
+    }
+
+    public void restoreTasks(int[] ids) {
+        long startNanos = TaskMetrics.start();
+        try {
+            taskCache.write(ids, () -> taskStore.updateDeleted(ids, false));
+            changes.publish(ids);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.RESTORE_TASKS, startNanos);
+        }
+    }
+
+    /**
+     * Removes rows left soft-deleted by a previous session whose undo window never closed. Those
+     * rows are not live, so nothing is published.
+     */
+    public void purgeDeletedTasks() {
+        long startNanos = TaskMetrics.start();
+        try {
+            taskCache.writeAll(taskStore::deleteAllDeleted);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.PURGE_DELETED_TASKS, startNanos);
+        }
+    }
+
+    /**
+     * Reads through the bounded cache; every update and delete above drops the cached copy.
+     */
+    public Task getTask(int id) {
+        long startNanos = TaskMetrics.start();
+        try {
+            return taskCache.get(id, taskStore::get);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.GET_TASK, startNanos);
+        }
+    }
+
+    /**
+     * Returns the full description of a task loaded for the list, which may carry only a preview.
+     * Long descriptions are inflated from the store once and then served from the cache.
+     */
+    public String getDescription(Task task) {
+        if (!task.isDescriptionPreview()) {
+            return task.getDescription();
+        }
+        Task full = getTask(task.getId());
+        return full == null ? task.getDescription() : full.getDescription();
+    }
+
+    /**
+     * Loads the live rows among the given ids, in no particular order.
+     */
+    public List<Task> getTasks(int[] ids) {
+        long startNanos = TaskMetrics.start();
+        try {
+            return taskStore.query(ids);
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.GET_TASKS, startNanos);
+        }
     }
 
     public List<Task> getAllTasks() {
-        List<Task> tasks = new ArrayList<>();
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.query(TaskDbHelper.TABLE_NAME, null, null, null, null, null, null);
-        if (cursor.moveToFirst()) {
-            do {
-                int id = cursor.getInt(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_ID));
-                String title = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_TITLE));
-                String desc = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_DESCRIPTION));
-                String deadline = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_DEADLINE));
-                String duration = cursor.getString(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_DURATION));
-                boolean isDone = cursor.getInt(cursor.getColumnIndexOrThrow(TaskDbHelper.COLUMN_IS_DONE)) == 1;
-                tasks.add(new Task(id, title, desc, deadline, duration, isDone));
-            } while (cursor.moveToNext());
+        long startNanos = TaskMetrics.start();
+        try {
+            List<Task> tasks = taskStore.queryAll();
+            TaskMetrics.add(TaskMetrics.Counter.TASKS_LOADED, tasks.size());
+            return tasks;
+        } finally {
+            TaskMetrics.stop(TaskMetrics.Timer.GET_ALL_TASKS, startNanos);
         }
-        cursor.close();
-        db.close();
-        return tasks;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Visits all live tasks in id order without holding them all in memory.
+     */
+    public void streamTasks(Consumer<Task> consumer) {
+        taskStore.stream(consumer);
+    }
+
+    TaskCache.Stats getCacheStats() {
+        return taskCache.stats();
+    }
+
+    /**
+     * Closes the store once the change bus has stopped reading from it.
+     */
+    public void close() {
+        changes.close();
+        taskStore.close();
+    }
+}
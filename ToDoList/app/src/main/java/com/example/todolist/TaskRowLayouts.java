@@ -0,0 +1,175 @@
+package com.example.todolist;
+
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds and caches the text layouts drawn by {@link TaskRowView}. Rows about to scroll into view
+ * are laid out ahead of time on a background thread, so binding a row usually finds its layouts
+ * ready and the UI thread does no text measurement.
+ */
+public class TaskRowLayouts {
+
+    private static final int MAX_CACHED = 256;
+    private static final int MAX_TITLE_LINES = 2;
+    private static final int MAX_DESCRIPTION_LINES = 3;
+
+    /**
+     * Precomputed layouts of one row for a given text width.
+     */
+    static final class Rows {
+        final int width;
+        final StaticLayout title;
+        final StaticLayout description;
+        final StaticLayout deadline;
+        final StaticLayout duration;
+        final int height;
+
+        Rows(int width, StaticLayout title, StaticLayout description, StaticLayout deadline,
+             StaticLayout duration, int lineSpacing) {
+            this.width = width;
+            this.title = title;
+            this.description = description;
+            this.deadline = deadline;
+            this.duration = duration;
+            this.height = title.getHeight() + description.getHeight() + deadline.getHeight()
+                    + duration.getHeight() + 3 * lineSpacing;
+        }
+    }
+
+    private final TaskRowStyle style;
+    private final ExecutorService executor;
+    // Keyed by Task identity: a Task's texts never change, only isDone does
+    private final LinkedHashMap<Task, Rows> cache = new LinkedHashMap<Task, Rows>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Task, Rows> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private volatile int textWidth;
+
+    public TaskRowLayouts(TaskRowStyle style) {
+        this.style = style;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-row-layouts");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getTextWidth() {
+        return textWidth;
+    }
+
+    /**
+     * Called when rows are measured. A new width makes every cached layout stale.
+     */
+    public void setTextWidth(int width) {
+        if (width != textWidth) {
+            textWidth = width;
+            synchronized (cache) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the layouts for a task, building them on the calling thread if the background
+     * thread has not got to them yet.
+     */
+    Rows obtain(Task task, int width) {
+        synchronized (cache) {
+            Rows rows = cache.get(task);
+            if (rows != null && rows.width == width) {
+                return rows;
+            }
+        }
+        Rows rows = build(task, width);
+        TaskMetrics.increment(TaskMetrics.Counter.LAYOUTS_BUILT_ON_BIND);
+        if (width == textWidth) {
+            synchronized (cache) {
+                cache.put(task, rows);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Queues layout of tasks[from, to) on the background thread. Call from the UI thread.
+     */
+    public void prefetch(List<Task> tasks, int from, int to) {
+        final int width = textWidth;
+        from = Math.max(0, from);
+        to = Math.min(tasks.size(), to);
+        if (width <= 0 || from >= to) {
+            return;
+        }
+        final List<Task> missing = new ArrayList<>(to - from);
+        synchronized (cache) {
+            for (int i = from; i < to; i++) {
+                Task task = tasks.get(i);
+                Rows rows = cache.get(task);
+                if (rows == null || rows.width != width) {
+                    missing.add(task);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> {
+            for (Task task : missing) {
+                if (width != textWidth) {
+                    return;
+                }
+                Rows rows = build(task, width);
+                synchronized (cache) {
+                    if (width == textWidth && !cache.containsKey(task)) {
+                        cache.put(task, rows);
+                    }
+                }
+                TaskMetrics.increment(TaskMetrics.Counter.LAYOUTS_PREFETCHED);
+            }
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Rows build(Task task, int width) {
+        return new Rows(width,
+                layout(task.getTitle(), style.titlePaint, width, MAX_TITLE_LINES),
+                layout(description(task), style.descriptionPaint, width, MAX_DESCRIPTION_LINES),
+                layout(task.getDeadline(), style.deadlinePaint, width, 1),
+                layout(task.getDuration(), style.durationPaint, width, 1),
+                style.lineSpacing);
+    }
+
+    // A preview ends mid-text even when it fits in the row, so it always gets an ellipsis
+    private static CharSequence description(Task task) {
+        return task.isDescriptionPreview() ? task.getDescription() + "\u2026" : task.getDescription();
+    }
+
+    private static StaticLayout layout(CharSequence text, TextPaint paint, int width, int maxLines) {
+        if (text == null) {
+            text = "";
+        }
+        return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                .setAlignment(Layout.Alignment.ALIGN_NORMAL)
+                .setIncludePad(false)
+                .setEllipsize(TextUtils.TruncateAt.END)
+                .setMaxLines(maxLines)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+/**
+ * Paints and dimensions for {@link TaskRowView}, matching the old task_item.xml row. One style is
+ * shared by every row. The paints are never modified after construction, which is what makes it
+ * safe for {@link TaskRowLayouts} to build text layouts with them off the UI thread.
+ */
+public class TaskRowStyle {
+
+    final TextPaint titlePaint;
+    final TextPaint descriptionPaint;
+    final TextPaint deadlinePaint;
+    final TextPaint durationPaint;
+    final TextPaint buttonTextPaint;
+    final Paint backgroundPaint;
+    final Paint selectedBackgroundPaint;
+    final Paint doneButtonPaint;
+    final Paint deleteButtonPaint;
+    // Darkens a button while it is held down
+    final Paint pressedButtonPaint;
+    final Paint strikePaint;
+
+    final float buttonTextOffset;
+    final float strikeWidth;
+
+    final int padding;
+    final int lineSpacing;
+    final int buttonSize;
+    final int buttonGap;
+    final int buttonCorner;
+    final int rowMargin;
+
+    public TaskRowStyle(Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+
+        titlePaint = textPaint(sp(18, metrics), Color.BLACK);
+        titlePaint.setTypeface(Typeface.DEFAULT_BOLD);
+        descriptionPaint = textPaint(sp(14, metrics), Color.parseColor("#444444"));
+        deadlinePaint = textPaint(sp(13, metrics), Color.parseColor("#FF9800"));
+        durationPaint = textPaint(sp(13, metrics), Color.parseColor("#009688"));
+        buttonTextPaint = textPaint(sp(16, metrics), Color.WHITE);
+        buttonTextPaint.setTextAlign(Paint.Align.CENTER);
+        Paint.FontMetrics buttonMetrics = buttonTextPaint.getFontMetrics();
+        buttonTextOffset = -(buttonMetrics.ascent + buttonMetrics.descent) / 2f;
+        strikeWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, metrics);
+
+        backgroundPaint = fillPaint(Color.parseColor("#F1F1F1"));
+        selectedBackgroundPaint = fillPaint(Color.parseColor("#D1C4E9"));
+        doneButtonPaint = fillPaint(Color.parseColor("#4CAF50"));
+        deleteButtonPaint = fillPaint(Color.parseColor("#F44336"));
+        pressedButtonPaint = fillPaint(Color.parseColor("#33000000"));
+        strikePaint = fillPaint(Color.parseColor("#444444"));
+
+        padding = dp(12, metrics);
+        lineSpacing = dp(2, metrics);
+        buttonSize = dp(48, metrics);
+        buttonGap = dp(8, metrics);
+        buttonCorner = dp(4, metrics);
+        rowMargin = dp(8, metrics);
+    }
+
+    /**
+     * Width left for text once padding and the two buttons are taken out of the row width.
+     */
+    int textWidth(int rowWidth) {
+        return Math.max(0, rowWidth - 2 * padding - 2 * buttonSize - 2 * buttonGap);
+    }
+
+    private static TextPaint textPaint(float size, int color) {
+        TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(size);
+        paint.setColor(color);
+        return paint;
+    }
+
+    private static Paint fillPaint(int color) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(color);
+        return paint;
+    }
+
+    private static float sp(int value, DisplayMetrics metrics) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, value, metrics);
+    }
+
+    private static int dp(int value, DisplayMetrics metrics) {
+        return Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, metrics));
+    }
+}
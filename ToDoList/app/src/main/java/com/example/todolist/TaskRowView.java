@@ -0,0 +1,344 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Bundle;
+import android.text.Layout;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.Button;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import java.util.List;
+
+/**
+ * A task row drawn as a single view: title, description, deadline and duration come from
+ * precomputed {@link TaskRowLayouts}, and the Done and Delete buttons are painted and hit-tested
+ * here instead of being child views. This replaces the nested LinearLayout of task_item.xml,
+ * so a row costs one view to create, measure and draw. The buttons reach TalkBack and switch
+ * access as virtual views through {@link ExploreByTouchHelper}.
+ */
+public class TaskRowView extends View {
+
+    public interface OnActionListener {
+        void onDoneClicked(TaskRowView row);
+
+        void onDeleteClicked(TaskRowView row);
+    }
+
+    // Also the buttons' virtual view ids
+    static final int TARGET_NONE = 0;
+    static final int TARGET_DONE = 1;
+    static final int TARGET_DELETE = 2;
+
+    private static final String DONE_LABEL = "✅";
+    private static final String DELETE_LABEL = "🗑️";
+
+    private final TaskRowStyle style;
+    private final TaskRowLayouts rowLayouts;
+    private final RectF doneRect = new RectF();
+    private final RectF deleteRect = new RectF();
+    private final TargetAccessibility accessibility = new TargetAccessibility();
+
+    private Task task;
+    private TaskRowLayouts.Rows rows;
+    private boolean done;
+    private int pressedTarget = TARGET_NONE;
+    // False while the pointer has slid off the pressed button; releasing there does nothing
+    private boolean pressedInside;
+    private OnActionListener actionListener;
+
+    public TaskRowView(Context context, TaskRowStyle style, TaskRowLayouts rowLayouts) {
+        super(context);
+        this.style = style;
+        this.rowLayouts = rowLayouts;
+        setClickable(true);
+        ViewCompat.setAccessibilityDelegate(this, accessibility);
+    }
+
+    public void setOnActionListener(OnActionListener actionListener) {
+        this.actionListener = actionListener;
+    }
+
+    OnActionListener getActionListener() {
+        return actionListener;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    TaskRowLayouts.Rows getRows() {
+        return rows;
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Shows a task. Rebinding the same Task only refreshes its done state.
+     */
+    public void bind(Task task) {
+        if (task != this.task) {
+            this.task = task;
+            int width = rowLayouts.getTextWidth();
+            TaskRowLayouts.Rows previous = rows;
+            rows = width > 0 ? rowLayouts.obtain(task, width) : null;
+            if (rows == null || previous == null || rows.height != previous.height) {
+                requestLayout();
+            }
+            invalidate();
+        }
+        setDone(task.isDone());
+    }
+
+    public void setDone(boolean done) {
+        if (this.done != done) {
+            this.done = done;
+            invalidate();
+            // The Done button's label says what a click would do
+            accessibility.invalidateVirtualView(TARGET_DONE);
+        }
+    }
+
+    @Override
+    public void setActivated(boolean activated) {
+        if (activated != isActivated()) {
+            super.setActivated(activated);
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int textWidth = style.textWidth(width);
+        rowLayouts.setTextWidth(textWidth);
+        if (task != null && (rows == null || rows.width != textWidth)) {
+            rows = rowLayouts.obtain(task, textWidth);
+        }
+        int contentHeight = Math.max(rows != null ? rows.height : 0, style.buttonSize);
+        setMeasuredDimension(width, resolveSize(contentHeight + 2 * style.padding, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        float top = (h - style.buttonSize) / 2f;
+        float right = w - style.padding;
+        deleteRect.set(right - style.buttonSize, top, right, top + style.buttonSize);
+        right = deleteRect.left - style.buttonGap;
+        doneRect.set(right - style.buttonSize, top, right, top + style.buttonSize);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        canvas.drawRect(0, 0, getWidth(), getHeight(),
+                isActivated() ? style.selectedBackgroundPaint : style.backgroundPaint);
+
+        if (rows != null) {
+            canvas.save();
+            canvas.translate(style.padding, style.padding);
+            drawText(canvas, rows.title, done);
+            drawText(canvas, rows.description, done);
+            drawText(canvas, rows.deadline, false);
+            drawText(canvas, rows.duration, false);
+            canvas.restore();
+        }
+
+        drawButton(canvas, doneRect, style.doneButtonPaint, DONE_LABEL, getPressedTarget() == TARGET_DONE);
+        drawButton(canvas, deleteRect, style.deleteButtonPaint, DELETE_LABEL, getPressedTarget() == TARGET_DELETE);
+    }
+
+    // Draws a layout at the current origin, then moves the origin below it
+    private void drawText(Canvas canvas, Layout layout, boolean strikeThrough) {
+        layout.draw(canvas);
+        if (strikeThrough) {
+            // Struck through by hand so done state never requires new layouts
+            float half = style.strikeWidth / 2f;
+            for (int line = 0; line < layout.getLineCount(); line++) {
+                float y = (layout.getLineTop(line) + layout.getLineBottom(line)) / 2f;
+                canvas.drawRect(layout.getLineLeft(line), y - half, layout.getLineRight(line), y + half, style.strikePaint);
+            }
+        }
+        canvas.translate(0, layout.getHeight() + style.lineSpacing);
+    }
+
+    private void drawButton(Canvas canvas, RectF rect, Paint paint, String label, boolean pressed) {
+        canvas.drawRoundRect(rect, style.buttonCorner, style.buttonCorner, paint);
+        if (pressed) {
+            canvas.drawRoundRect(rect, style.buttonCorner, style.buttonCorner, style.pressedButtonPaint);
+        }
+        canvas.drawText(label, rect.centerX(), rect.centerY() + style.buttonTextOffset, style.buttonTextPaint);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                pressedTarget = hitTest(event.getX(), event.getY());
+                if (pressedTarget != TARGET_NONE) {
+                    pressedInside = true;
+                    invalidate();
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (pressedTarget != TARGET_NONE) {
+                    int target = pressedTarget;
+                    pressedTarget = TARGET_NONE;
+                    invalidate();
+                    if (target == hitTest(event.getX(), event.getY())) {
+                        dispatchAction(target);
+                    }
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                if (pressedTarget != TARGET_NONE) {
+                    pressedTarget = TARGET_NONE;
+                    invalidate();
+                    return true;
+                }
+                break;
+            default:
+                if (pressedTarget != TARGET_NONE) {
+                    boolean inside = hitTest(event.getX(), event.getY()) == pressedTarget;
+                    if (inside != pressedInside) {
+                        pressedInside = inside;
+                        invalidate();
+                    }
+                    return true;
+                }
+                break;
+        }
+        // Everywhere else behaves like a normal row: tap and long press
+        return super.onTouchEvent(event);
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return accessibility.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        return accessibility.dispatchKeyEvent(event) || super.dispatchKeyEvent(event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, @Nullable Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        accessibility.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+    }
+
+    int hitTest(float x, float y) {
+        if (doneRect.contains(x, y)) {
+            return TARGET_DONE;
+        }
+        if (deleteRect.contains(x, y)) {
+            return TARGET_DELETE;
+        }
+        return TARGET_NONE;
+    }
+
+    /**
+     * The button drawn pressed: the one a touch went down on, while the pointer is still over it.
+     */
+    int getPressedTarget() {
+        return pressedInside ? pressedTarget : TARGET_NONE;
+    }
+
+    void getTargetBounds(int target, Rect bounds) {
+        (target == TARGET_DONE ? doneRect : deleteRect).roundOut(bounds);
+    }
+
+    private void dispatchAction(int target) {
+        if (actionListener == null) {
+            return;
+        }
+        if (target == TARGET_DONE) {
+            actionListener.onDoneClicked(this);
+        } else if (target == TARGET_DELETE) {
+            actionListener.onDeleteClicked(this);
+        }
+    }
+
+    /**
+     * The Done and Delete buttons as virtual views, each labelled and clickable, and the row's
+     * text as the host's description, since none of it is a real view.
+     */
+    private final class TargetAccessibility extends ExploreByTouchHelper {
+        private final Rect bounds = new Rect();
+
+        TargetAccessibility() {
+            super(TaskRowView.this);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int target = hitTest(x, y);
+            return target == TARGET_NONE ? INVALID_ID : target;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            virtualViewIds.add(TARGET_DONE);
+            virtualViewIds.add(TARGET_DELETE);
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, @NonNull AccessibilityNodeInfoCompat node) {
+            node.setContentDescription(virtualViewId == TARGET_DONE ? (done ? "Mark not done" : "Mark done") : "Delete");
+            node.setClassName(Button.class.getName());
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+            getTargetBounds(virtualViewId, bounds);
+            node.setBoundsInParent(bounds);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, @Nullable Bundle arguments) {
+            if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+                return false;
+            }
+            dispatchAction(virtualViewId);
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+            return true;
+        }
+
+        @Override
+        protected void onPopulateNodeForHost(@NonNull AccessibilityNodeInfoCompat node) {
+            if (task == null) {
+                return;
+            }
+            StringBuilder description = new StringBuilder(task.getTitle());
+            if (rows != null) {
+                appendPart(description, rows.description.getText());
+                appendPart(description, rows.deadline.getText());
+                appendPart(description, rows.duration.getText());
+            }
+            if (done) {
+                description.append(", done");
+            }
+            node.setContentDescription(description);
+        }
+
+        // Rows show an empty deadline or duration as nothing, and so does the description
+        private void appendPart(StringBuilder description, CharSequence part) {
+            if (part.length() > 0) {
+                description.append(", ").append(part);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.todolist;
+
+import java.util.BitSet;
+
+/**
+ * Set of selected task ids for multi-select mode. Ids are small autoincrement integers, so a
+ * BitSet keeps membership checks allocation-free during binds.
+ */
+public class TaskSelection {
+
+    private final BitSet ids = new BitSet();
+
+    public boolean toggle(int id) {
+        ids.flip(id);
+        return ids.get(id);
+    }
+
+    public void add(int id) {
+        ids.set(id);
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && ids.get(id);
+    }
+
+    public int size() {
+        return ids.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return ids.isEmpty();
+    }
+
+    public void clear() {
+        ids.clear();
+    }
+
+    public int[] toArray() {
+        int[] result = new int[ids.cardinality()];
+        int n = 0;
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            result[n++] = id;
+        }
+        return result;
+    }
+}
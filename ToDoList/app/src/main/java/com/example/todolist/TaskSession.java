@@ -0,0 +1,164 @@
+package com.example.todolist;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The open task list, kept across configuration changes. Owns the repository, the purger and the
+ * adapter, whose journal holds the undo history, so rotating the screen neither reopens the
+ * database nor purges rows whose undo window is still open. The database is opened once, when
+ * the session is created, and again only by {@link #retry} after a failed open; everything is
+ * closed when the activity finishes for good.
+ */
+public class TaskSession extends AndroidViewModel {
+
+    public interface Listener {
+        /**
+         * Called on the main thread while a migration rewrites rows.
+         */
+        void onMigrationProgress(long rowsDone, long rowsTotal);
+
+        /**
+         * Called on the main thread once the list is loaded, or right away by
+         * {@link #setListener} when it already is.
+         */
+        void onOpened(TaskSession session);
+
+        /**
+         * Called on the main thread when opening, migrating or loading failed, or right away by
+         * {@link #setListener} while that is still the case. {@link #retry} tries again.
+         */
+        void onOpenFailed(TaskSession session, RuntimeException error);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final TaskDbHelper dbHelper;
+    private Listener listener;
+    private TaskRepository repository;
+    private TaskPurger purger;
+    private TaskAdapter adapter;
+    private long migratedRows;
+    private long migrationRows;
+    private RuntimeException failure;
+    private boolean cleared;
+
+    public TaskSession(@NonNull Application application) {
+        super(application);
+        dbHelper = new TaskDbHelper(application);
+        open();
+    }
+
+    /**
+     * Opens the database again after {@link Listener#onOpenFailed}. Does nothing otherwise.
+     */
+    public void retry() {
+        if (failure == null || cleared) {
+            return;
+        }
+        failure = null;
+        migratedRows = 0;
+        migrationRows = 0;
+        open();
+    }
+
+    private void open() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.execute(() -> {
+            TaskStartup startup;
+            try {
+                startup = TaskStartup.open(dbHelper, (rowsDone, rowsTotal) -> {
+                    if (rowsTotal > 0) {
+                        mainHandler.post(() -> showMigrationProgress(rowsDone, rowsTotal));
+                    }
+                });
+            } catch (RuntimeException e) {
+                mainHandler.post(() -> openFailed(e));
+                return;
+            }
+            mainHandler.post(() -> opened(startup));
+        });
+        executor.shutdown();
+    }
+
+    /**
+     * Sets the activity to report to, replaying the progress or the opened list; pass null when
+     * it is destroyed.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener == null) {
+            return;
+        }
+        if (adapter != null) {
+            listener.onOpened(this);
+        } else if (failure != null) {
+            listener.onOpenFailed(this, failure);
+        } else if (migrationRows > 0) {
+            listener.onMigrationProgress(migratedRows, migrationRows);
+        }
+    }
+
+    public TaskRepository getRepository() {
+        return repository;
+    }
+
+    public TaskAdapter getAdapter() {
+        return adapter;
+    }
+
+    private void showMigrationProgress(long rowsDone, long rowsTotal) {
+        migratedRows = rowsDone;
+        migrationRows = rowsTotal;
+        if (listener != null) {
+            listener.onMigrationProgress(rowsDone, rowsTotal);
+        }
+    }
+
+    private void openFailed(RuntimeException error) {
+        if (cleared) {
+            dbHelper.close();
+            return;
+        }
+        failure = error;
+        if (listener != null) {
+            listener.onOpenFailed(this, error);
+        }
+    }
+
+    private void opened(TaskStartup startup) {
+        if (cleared) {
+            startup.repository.close();
+            return;
+        }
+        repository = startup.repository;
+        purger = new TaskPurger(repository);
+        adapter = new TaskAdapter(new ArrayList<>(startup.tasks), repository, purger);
+        if (listener != null) {
+            listener.onOpened(this);
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        cleared = true;
+        // While still opening there is nothing to close yet; opened() or openFailed() closes the
+        // database
+        if (adapter != null) {
+            // Leaving the list ends the undo window
+            adapter.clearHistory();
+            adapter.close();
+            // The database stays open while the purge thread may still write to it
+            purger.shutdown(repository::close);
+        } else if (failure != null) {
+            dbHelper.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.todolist;
+
+import java.util.List;
+
+/**
+ * The part of launch that runs off the UI thread: open and migrate the database, purge the rows
+ * whose undo window ended in an earlier session, and load the list. Each phase is a TaskMetrics
+ * timer and a trace section. A failure in any phase is thrown to the caller, with the database
+ * closed again if it got as far as the repository.
+ */
+final class TaskStartup {
+
+    final TaskRepository repository;
+    final List<Task> tasks;
+
+    private TaskStartup(TaskRepository repository, List<Task> tasks) {
+        this.repository = repository;
+        this.tasks = tasks;
+    }
+
+    static TaskStartup open(TaskDbHelper dbHelper, TaskMigrator.ProgressListener listener) {
+        long startNanos = TaskMetrics.beginSection(TaskMetrics.Timer.STARTUP_DB_OPEN);
+        try {
+            new TaskMigrator(dbHelper).run(listener);
+        } finally {
+            TaskMetrics.endSection(TaskMetrics.Timer.STARTUP_DB_OPEN, startNanos);
+        }
+        // Changes from any thread reach the list once per frame
+        TaskRepository repository = new TaskRepository(new SqliteTaskStore(dbHelper),
+                new TaskChangeBus(TaskChangeBus.mainThreadFrames()));
+
+        try {
+            // Before the load, so nothing the user deletes in this session is purged before its undo window ends
+            startNanos = TaskMetrics.beginSection(TaskMetrics.Timer.STARTUP_PURGE);
+            try {
+                repository.purgeDeletedTasks();
+            } finally {
+                TaskMetrics.endSection(TaskMetrics.Timer.STARTUP_PURGE, startNanos);
+            }
+
+            startNanos = TaskMetrics.beginSection(TaskMetrics.Timer.STARTUP_LOAD);
+            try {
+                return new TaskStartup(repository, repository.getAllTasks());
+            } finally {
+                TaskMetrics.endSection(TaskMetrics.Timer.STARTUP_LOAD, startNanos);
+            }
+        } catch (RuntimeException e) {
+            // The caller only gets the repository from a startup that finished
+            repository.close();
+            throw e;
+        }
+    }
+}
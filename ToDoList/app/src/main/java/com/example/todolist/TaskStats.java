@@ -0,0 +1,156 @@
+package com.example.todolist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutable per-chunk accumulator behind {@link TaskReport}. Each fork-join task fills its own and
+ * the results are merged; the parsing here and the SQL in {@link SqlTaskAnalytics} must agree
+ * on every input.
+ */
+final class TaskStats {
+
+    private static final int TASKS = 0, DONE = 1, PLANNED = 2, COMPLETED = 3, OVERDUE = 4, FIELDS = 5;
+    // Longer numbers are treated as unreadable rather than risk overflow
+    static final int MAX_DURATION_DIGITS = 6;
+
+    private final int today;
+    private final Map<Integer, long[]> weeks = new HashMap<>();
+    private final long[] undated = new long[FIELDS];
+
+    TaskStats(int today) {
+        this.today = today;
+    }
+
+    void add(Task task) {
+        int day = deadlineDay(task.getDeadline());
+        long[] counts;
+        if (day == TaskReport.NO_WEEK) {
+            counts = undated;
+        } else {
+            int week = TaskReport.weekStart(day);
+            counts = weeks.get(week);
+            if (counts == null) {
+                counts = new long[FIELDS];
+                weeks.put(week, counts);
+            }
+        }
+        int minutes = durationMinutes(task.getDuration());
+        counts[TASKS]++;
+        counts[PLANNED] += minutes;
+        if (task.isDone()) {
+            counts[DONE]++;
+            counts[COMPLETED] += minutes;
+        } else if (day != TaskReport.NO_WEEK && day < today) {
+            counts[OVERDUE]++;
+        }
+    }
+
+    void merge(TaskStats other) {
+        addAll(undated, other.undated);
+        for (Map.Entry<Integer, long[]> entry : other.weeks.entrySet()) {
+            long[] counts = weeks.get(entry.getKey());
+            if (counts == null) {
+                weeks.put(entry.getKey(), entry.getValue().clone());
+            } else {
+                addAll(counts, entry.getValue());
+            }
+        }
+    }
+
+    TaskReport toReport() {
+        List<Integer> starts = new ArrayList<>(weeks.keySet());
+        starts.sort(null);
+        List<TaskReport.Week> list = new ArrayList<>(starts.size());
+        for (int start : starts) {
+            list.add(week(start, weeks.get(start)));
+        }
+        return new TaskReport(today, list, week(TaskReport.NO_WEEK, undated));
+    }
+
+    private static TaskReport.Week week(int start, long[] counts) {
+        return new TaskReport.Week(start, counts[TASKS], counts[DONE], counts[PLANNED], counts[COMPLETED],
+                counts[OVERDUE]);
+    }
+
+    private static void addAll(long[] into, long[] from) {
+        for (int i = 0; i < FIELDS; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    /**
+     * The day of a d/M/yyyy deadline as AddTaskActivity writes it, zero padding allowed, or
+     * {@link TaskReport#NO_WEEK} for anything else.
+     */
+    static int deadlineDay(String deadline) {
+        if (deadline == null) {
+            return TaskReport.NO_WEEK;
+        }
+        int first = deadline.indexOf('/');
+        int second = deadline.indexOf('/', first + 1);
+        if (first < 1 || first > 2 || second - first - 1 < 1 || second - first - 1 > 2
+                || deadline.length() - second - 1 != 4) {
+            return TaskReport.NO_WEEK;
+        }
+        int day = digits(deadline, 0, first);
+        int month = digits(deadline, first + 1, second);
+        int year = digits(deadline, second + 1, deadline.length());
+        if (day < 1 || day > 31 || month < 1 || month > 12 || year < 1) {
+            return TaskReport.NO_WEEK;
+        }
+        return TaskReport.epochDay(year, month, day);
+    }
+
+    /**
+     * Minutes of a duration such as "2h", "90m" or "3" (hours), with optional spaces; 0 when it
+     * does not parse.
+     */
+    static int durationMinutes(String duration) {
+        if (duration == null) {
+            return 0;
+        }
+        int start = 0;
+        int end = duration.length();
+        while (start < end && duration.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && duration.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int unit = 60;
+        if (end > start) {
+            char last = duration.charAt(end - 1);
+            if (last == 'h' || last == 'H' || last == 'm' || last == 'M') {
+                unit = last == 'm' || last == 'M' ? 1 : 60;
+                end--;
+                while (end > start && duration.charAt(end - 1) == ' ') {
+                    end--;
+                }
+            }
+        }
+        if (end - start > MAX_DURATION_DIGITS) {
+            return 0;
+        }
+        int value = digits(duration, start, end);
+        return value < 0 ? 0 : value * unit;
+    }
+
+    // The number in s[start, end), or -1 unless it is one or more ASCII digits
+    private static int digits(String s, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
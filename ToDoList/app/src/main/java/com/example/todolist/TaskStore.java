@@ -0,0 +1,58 @@
+package com.example.todolist;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine behind {@link TaskRepository}. Every engine keeps soft-deleted rows until they
+ * are deleted or purged, and every read returns live rows only, as new Task objects the caller
+ * is free to modify.
+ *
+ * <p>Implementations: {@link SqliteTaskStore} (the app's database), {@link InMemoryTaskStore}
+ * and {@link LogTaskStore}. All of them are safe to call from several threads.
+ */
+public interface TaskStore {
+
+    /**
+     * Stores a new task and returns its id. Ids are never reused, even after a purge.
+     */
+    long insert(Task task);
+
+    void updateDone(int[] ids, boolean isDone);
+
+    void updateDeleted(int[] ids, boolean isDeleted);
+
+    /**
+     * Physically removes the given rows.
+     */
+    void delete(int[] ids);
+
+    /**
+     * Physically removes every soft-deleted row.
+     */
+    void deleteAllDeleted();
+
+    /**
+     * Returns the live task with this id, or null.
+     */
+    Task get(int id);
+
+    /**
+     * Returns the live tasks among the given ids, in no particular order. Like the other list
+     * reads, an engine may return only a preview of long descriptions, flagged by
+     * {@link Task#isDescriptionPreview}; {@link #get} always has the full text.
+     */
+    List<Task> query(int[] ids);
+
+    /**
+     * Returns all live tasks in id order.
+     */
+    List<Task> queryAll();
+
+    /**
+     * Visits all live tasks in id order without collecting them into a list.
+     */
+    void stream(Consumer<Task> consumer);
+
+    void close();
+}
@@ -0,0 +1,27 @@
+package com.example.todolist;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the bytes allocated by the current thread, using the HotSpot extension of ThreadMXBean.
+ */
+final class AllocationCounter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationCounter() {
+    }
+
+    static long currentThreadBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static long bytesAllocatedBy(Runnable action) {
+        // The first call can allocate internally; warm it up before measuring
+        currentThreadBytes();
+        long before = currentThreadBytes();
+        action.run();
+        return currentThreadBytes() - before;
+    }
+}
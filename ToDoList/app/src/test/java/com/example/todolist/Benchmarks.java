@@ -0,0 +1,29 @@
+package com.example.todolist;
+
+import org.junit.Assume;
+
+import java.util.Locale;
+
+/**
+ * Helpers shared by the benchmark tests. Benchmarks are skipped in the regular test run and are
+ * enabled with {@code ./gradlew test -Pbenchmarks=true}.
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    static void assumeEnabled() {
+        Assume.assumeTrue("Benchmarks run with -Pbenchmarks=true", Boolean.getBoolean("benchmarks"));
+    }
+
+    static long timeNanos(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    static void report(String name, String format, Object... args) {
+        System.out.println("[benchmark] " + name + ": " + String.format(Locale.US, format, args));
+    }
+}
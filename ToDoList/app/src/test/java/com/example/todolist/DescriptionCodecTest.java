@@ -0,0 +1,56 @@
+package com.example.todolist;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for DescriptionCodec: deflate round trips, thresholds and previews
+ */
+public class DescriptionCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        String text = TaskStoreContractTest.longText(20_000) + "😀 end";
+        byte[] deflated = DescriptionCodec.deflate(text);
+
+        assertTrue(deflated.length < text.length() / 2);
+        assertEquals(text, DescriptionCodec.inflate(deflated, text.length()));
+        assertEquals("", DescriptionCodec.inflate(DescriptionCodec.deflate(""), 0));
+    }
+
+    @Test
+    public void testOnlyLongDescriptionsAreCompressed() {
+        assertFalse(DescriptionCodec.isCompressed(null));
+        assertFalse(DescriptionCodec.isCompressed(TaskStoreContractTest.longText(0)));
+        assertFalse(DescriptionCodec.isCompressed(repeat('a', DescriptionCodec.COMPRESS_THRESHOLD)));
+        assertTrue(DescriptionCodec.isCompressed(repeat('a', DescriptionCodec.COMPRESS_THRESHOLD + 1)));
+    }
+
+    @Test
+    public void testPreview() {
+        assertNull(DescriptionCodec.preview(null));
+        assertEquals("Short", DescriptionCodec.preview("Short"));
+        String text = repeat('a', 1_000);
+        assertEquals(text.substring(0, DescriptionCodec.PREVIEW_LENGTH), DescriptionCodec.preview(text));
+
+        // An emoji straddling the cut is left out rather than split
+        String split = repeat('a', DescriptionCodec.PREVIEW_LENGTH - 1) + "😀" + text;
+        assertEquals(repeat('a', DescriptionCodec.PREVIEW_LENGTH - 1), DescriptionCodec.preview(split));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCorruptDataIsRejected() {
+        byte[] deflated = DescriptionCodec.deflate(TaskStoreContractTest.longText(2_000));
+        DescriptionCodec.inflate(Arrays.copyOf(deflated, deflated.length / 2), 2_000);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder text = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            text.append(c);
+        }
+        return text.toString();
+    }
+}
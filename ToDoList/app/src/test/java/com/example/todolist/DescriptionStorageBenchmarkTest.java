@@ -0,0 +1,146 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Database size and list-load time for corpora of long, short and mixed descriptions, stored
+ * inline as in version 2 and in the current layout, where only long descriptions get a preview
+ * and deflated text
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DescriptionStorageBenchmarkTest {
+
+    private static final int TASKS = 2_000;
+    private static final int LOADS = 5;
+    // In the mixed corpus, one description in LONG_EVERY is long
+    private static final int LONG_EVERY = 10;
+    private static final String[] WORDS = {
+            "meeting", "report", "draft", "review", "the", "and", "budget", "client", "follow", "up",
+            "schedule", "notes", "for", "with", "team", "deadline", "update", "check", "send", "call"};
+
+    @Test
+    public void benchmarkLongDescriptions() {
+        Benchmarks.assumeEnabled();
+        Random random = new Random(42);
+        String[] descriptions = new String[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            descriptions[i] = sentence(random, 1_000 + random.nextInt(3_000));
+        }
+        compare("long", descriptions);
+    }
+
+    /**
+     * Most real descriptions fit in the row; they must not pay for a copy in the preview column
+     */
+    @Test
+    public void benchmarkShortDescriptions() {
+        Benchmarks.assumeEnabled();
+        Random random = new Random(42);
+        String[] descriptions = new String[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            descriptions[i] = sentence(random, 20 + random.nextInt(200));
+        }
+        compare("short", descriptions);
+    }
+
+    @Test
+    public void benchmarkMixedDescriptions() {
+        Benchmarks.assumeEnabled();
+        Random random = new Random(42);
+        String[] descriptions = new String[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            descriptions[i] = i % LONG_EVERY == 0
+                    ? sentence(random, 1_000 + random.nextInt(3_000))
+                    : sentence(random, 20 + random.nextInt(200));
+        }
+        compare("mixed", descriptions);
+    }
+
+    private static void compare(String corpus, String[] descriptions) {
+        Context context = RuntimeEnvironment.getApplication();
+
+        // Version 2: the whole description in the tasks row
+        File inlineFile = context.getDatabasePath("tasks_v2.db");
+        context.deleteDatabase(inlineFile.getName());
+        SQLiteDatabase inline = SqliteTaskStoreTest.createVersion2(inlineFile);
+        inline.beginTransaction();
+        for (int i = 0; i < TASKS; i++) {
+            inline.execSQL("INSERT INTO tasks (title, description, deadline, duration) VALUES (?, ?, ?, ?)",
+                    new Object[]{"Task " + i, descriptions[i], "01/01/2025", "2h"});
+        }
+        inline.setTransactionSuccessful();
+        inline.endTransaction();
+        inline.close();
+        long inlineBytes = databaseBytes(inlineFile);
+        inline = SQLiteDatabase.openOrCreateDatabase(inlineFile, null);
+        long inlineNanos = Long.MAX_VALUE;
+        for (int run = 0; run < LOADS; run++) {
+            SQLiteDatabase db = inline;
+            inlineNanos = Math.min(inlineNanos, Benchmarks.timeNanos(() -> assertEquals(TASKS, loadInline(db).size())));
+        }
+        inline.close();
+
+        // Current layout: short text in the row, long text previewed and deflated in task_descriptions
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        SqliteTaskStore writer = new SqliteTaskStore(new TaskDbHelper(context));
+        for (int i = 0; i < TASKS; i++) {
+            writer.insert(new Task("Task " + i, descriptions[i], "01/01/2025", "2h"));
+        }
+        writer.close();
+        long splitBytes = databaseBytes(context.getDatabasePath(TaskDbHelper.DATABASE_NAME));
+        SqliteTaskStore store = new SqliteTaskStore(new TaskDbHelper(context));
+        long splitNanos = Long.MAX_VALUE;
+        for (int run = 0; run < LOADS; run++) {
+            splitNanos = Math.min(splitNanos, Benchmarks.timeNanos(() -> assertEquals(TASKS, store.queryAll().size())));
+        }
+        long getNanos = Benchmarks.timeNanos(() -> {
+            for (int id = 1; id <= 100; id++) {
+                assertEquals(descriptions[id - 1], store.get(id).getDescription());
+            }
+        });
+        store.close();
+
+        Benchmarks.report("Descriptions size, " + corpus, "inline %d KiB, split %d KiB (%.0f%% smaller)",
+                inlineBytes / 1024, splitBytes / 1024, 100.0 * (inlineBytes - splitBytes) / inlineBytes);
+        Benchmarks.report("Descriptions list load, " + corpus, "inline %.1f ms, split %.1f ms (%.1fx), get %.0f us",
+                inlineNanos / 1e6, splitNanos / 1e6, (double) inlineNanos / splitNanos, getNanos / 100 / 1e3);
+    }
+
+    // What the list query read before previews: every column of every row
+    private static List<Task> loadInline(SQLiteDatabase db) {
+        List<Task> tasks = new ArrayList<>(TASKS);
+        Cursor cursor = db.rawQuery("SELECT id, title, description, deadline, duration, is_done FROM tasks"
+                + " WHERE is_deleted=0 ORDER BY id", null);
+        while (cursor.moveToNext()) {
+            tasks.add(new Task(cursor.getInt(0), cursor.getString(1), cursor.getString(2), cursor.getString(3),
+                    cursor.getString(4), cursor.getInt(5) == 1));
+        }
+        cursor.close();
+        return tasks;
+    }
+
+    private static long databaseBytes(File file) {
+        return file.length() + new File(file.getPath() + "-wal").length();
+    }
+
+    private static String sentence(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(8) == 0 ? ". " : " ");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.todolist;
+
+/**
+ * Runs the TaskStore conformance suite against InMemoryTaskStore
+ */
+public class InMemoryTaskStoreTest extends TaskStoreContractTest {
+
+    @Override
+    protected TaskStore createStore() {
+        return new InMemoryTaskStore();
+    }
+}
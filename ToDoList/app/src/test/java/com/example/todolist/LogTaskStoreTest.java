@@ -0,0 +1,424 @@
+package com.example.todolist;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Runs the TaskStore conformance suite against LogTaskStore, plus replay, crash-recovery,
+ * failed-write and checkpoint tests
+ */
+public class LogTaskStoreTest extends TaskStoreContractTest {
+
+    private File logFile;
+
+    @Override
+    protected TaskStore createStore() {
+        try {
+            logFile = File.createTempFile("tasks", ".log");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logFile.delete();
+        logFile.deleteOnExit();
+        return new LogTaskStore(logFile);
+    }
+
+    @Test
+    public void testReopenReplaysLog() {
+        int[] ids = insertTasks(50);
+        store.updateDone(new int[]{ids[3]}, true);
+        store.updateDeleted(new int[]{ids[4]}, true);
+        store.delete(new int[]{ids[5]});
+
+        Task reopenedTask = reopen().get(ids[3]);
+
+        assertEquals("Task 3", reopenedTask.getTitle());
+        assertTrue(reopenedTask.isDone());
+        assertNull(store.get(ids[4]));
+        assertNull(store.get(ids[5]));
+        assertEquals(48, store.queryAll().size());
+        store.updateDeleted(new int[]{ids[4]}, false);
+        assertNotNull("Soft-deleted rows survive a reopen", store.get(ids[4]));
+    }
+
+    @Test
+    public void testTornTailIsDropped() throws IOException {
+        insertTasks(10);
+        store.insert(new Task("Torn", "", "", ""));
+        store.close();
+        try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+            raf.setLength(logFile.length() - 3);
+        }
+
+        store = new LogTaskStore(logFile);
+
+        assertEquals(10, store.queryAll().size());
+        long id = store.insert(new Task("After", "", "", ""));
+        assertEquals("After", reopen().get((int) id).getTitle());
+    }
+
+    @Test
+    public void testCheckpointKeepsStateAndShrinksLog() {
+        int[] ids = insertTasks(100);
+        for (int round = 0; round < 50; round++) {
+            store.updateDone(ids, round % 2 == 1);
+        }
+        store.updateDeleted(new int[]{ids[0]}, true);
+        store.delete(new int[]{ids[99]});
+        long before = logFile.length();
+
+        ((LogTaskStore) store).checkpoint();
+
+        assertTrue("A checkpoint should shrink the log", logFile.length() < before);
+        reopen();
+        assertEquals(98, store.queryAll().size());
+        assertTrue(store.get(ids[1]).isDone());
+        store.updateDeleted(new int[]{ids[0]}, false);
+        assertNotNull("Soft-deleted rows survive a checkpoint", store.get(ids[0]));
+        assertTrue("Ids stay unique after a checkpoint", store.insert(new Task("New", "", "", "")) > ids[99]);
+    }
+
+    @Test
+    public void testCheckpointsAutomatically() {
+        int[] ids = insertTasks(10);
+        for (int i = 0; i < 10_000; i++) {
+            store.updateDone(new int[]{ids[i % ids.length]}, i % 3 == 0);
+        }
+
+        assertTrue("Log should have been checkpointed, size " + logFile.length(), logFile.length() < 100_000);
+        assertEquals(10, reopen().queryAll().size());
+    }
+
+    @Test
+    public void testFailedCheckpointKeepsOldLog() throws IOException {
+        int[] ids = insertTasks(10);
+        // A directory where the checkpoint file goes makes every checkpoint fail before the rename
+        File blocker = new File(logFile.getPath() + ".checkpoint");
+        File inside = new File(blocker, "keep");
+        assertTrue(blocker.mkdir() && inside.createNewFile());
+        try {
+            try {
+                ((LogTaskStore) store).checkpoint();
+                fail("The checkpoint cannot be written");
+            } catch (UncheckedIOException expected) {
+            }
+            // Enough writes to trigger automatic checkpoints, which must not fail them
+            for (int i = 0; i < 10_000; i++) {
+                store.updateDone(new int[]{ids[i % ids.length]}, i % 3 == 0);
+            }
+            long id = store.insert(new Task("After", "", "", ""));
+
+            assertEquals("After", reopen().get((int) id).getTitle());
+            assertEquals(11, store.queryAll().size());
+            assertTrue(store.get(ids[0]).isDone());
+        } finally {
+            inside.delete();
+            blocker.delete();
+        }
+    }
+
+    @Test
+    public void testFailedWriteIsCutOffTheLog() {
+        FaultyChannel[] opened = reopenFaulty();
+        int[] ids = insertTasks(10);
+        long before = logFile.length();
+
+        opened[0].failNextWrite = true;
+        try {
+            store.insert(new Task("Torn", "", "", ""));
+            fail("The write fails part way through the frame");
+        } catch (UncheckedIOException expected) {
+        }
+        assertEquals("Nothing the log does not hold may be visible", 10, store.queryAll().size());
+        assertEquals("The torn frame is cut off", before, logFile.length());
+        opened[0].failNextWrite = true;
+        try {
+            store.updateDone(new int[]{ids[0]}, true);
+            fail("The write fails part way through the frame");
+        } catch (UncheckedIOException expected) {
+        }
+        assertFalse(store.get(ids[0]).isDone());
+
+        long id = store.insert(new Task("After", "", "", ""));
+        store.updateDone(new int[]{ids[1]}, true);
+
+        reopen();
+        assertEquals("Records after the failure survive a replay", "After", store.get((int) id).getTitle());
+        assertEquals(11, store.queryAll().size());
+        assertFalse(store.get(ids[0]).isDone());
+        assertTrue(store.get(ids[1]).isDone());
+    }
+
+    /**
+     * Simulates crashes by cutting a copy of the log at random offsets. Recovery must give
+     * exactly the state after the last record that was completely written.
+     */
+    @Test
+    public void testRecoveryFromTruncationAtRandomOffsets() throws IOException {
+        Random random = new Random(7);
+        List<Long> boundaries = new ArrayList<>();
+        List<String> states = new ArrayList<>();
+        boundaries.add(0L);
+        states.add(snapshot(store));
+        List<Integer> ids = new ArrayList<>();
+        for (int op = 0; op < 300; op++) {
+            int choice = random.nextInt(10);
+            if (ids.isEmpty() || choice < 4) {
+                ids.add((int) store.insert(new Task("Task " + op, "Description ✓ " + op, "", op + "h")));
+            } else if (choice < 7) {
+                store.updateDone(new int[]{ids.get(random.nextInt(ids.size()))}, random.nextBoolean());
+            } else if (choice < 9) {
+                store.updateDeleted(new int[]{ids.get(random.nextInt(ids.size()))}, random.nextBoolean());
+            } else {
+                store.delete(new int[]{ids.remove(random.nextInt(ids.size()))});
+            }
+            boundaries.add(logFile.length());
+            states.add(snapshot(store));
+        }
+        store.close();
+        byte[] log = Files.readAllBytes(logFile.toPath());
+        File crashed = File.createTempFile("crashed", ".log");
+        crashed.deleteOnExit();
+
+        for (int trial = 0; trial < 200; trial++) {
+            int offset = random.nextInt(log.length + 1);
+            Files.write(crashed.toPath(), Arrays.copyOf(log, offset));
+            int expected = 0;
+            while (expected + 1 < boundaries.size() && boundaries.get(expected + 1) <= offset) {
+                expected++;
+            }
+
+            LogTaskStore recovered = new LogTaskStore(crashed);
+            assertEquals("Cut at " + offset, states.get(expected), snapshot(recovered));
+            // The recovered log must accept new writes and replay them
+            long id = recovered.insert(new Task("After crash", "", "", ""));
+            recovered.close();
+            recovered = new LogTaskStore(crashed);
+            assertEquals("After crash", recovered.get((int) id).getTitle());
+            recovered.close();
+        }
+        store = new LogTaskStore(logFile);
+    }
+
+    @Test
+    public void testCorruptTailIsDetectedByChecksum() throws IOException {
+        insertTasks(20);
+        store.insert(new Task("Corrupt", "", "", ""));
+        store.close();
+        // A torn write can leave a complete-looking frame with wrong bytes
+        try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+            raf.seek(logFile.length() - 2);
+            raf.write(0x5A);
+        }
+
+        reopen();
+
+        assertEquals("The corrupt record is dropped", 20, store.queryAll().size());
+        long id = store.insert(new Task("After", "", "", ""));
+        assertEquals("After", reopen().get((int) id).getTitle());
+    }
+
+    @Test
+    public void testConcurrentWritersShareForces() throws Exception {
+        FaultyChannel[] opened = reopenFaulty();
+        // A test filesystem forces in no time, which leaves no force for writers to share
+        opened[0].forceMillis = 1;
+        int threads = 8;
+        int perThread = 200;
+        long forcesBefore = ((LogTaskStore) store).forceCount();
+        // Held at the barrier so every writer is running before the first force
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        Throwable[] failures = new Throwable[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        store.insert(new Task("T" + thread + "-" + i, "", "", ""));
+                    }
+                } catch (Throwable e) {
+                    failures[thread] = e;
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                throw new AssertionError(failure);
+            }
+        }
+        long forces = ((LogTaskStore) store).forceCount() - forcesBefore;
+        Benchmarks.report("LogTaskStore group commit", "%d forces for %d concurrent inserts", forces, threads * perThread);
+
+        assertTrue("Concurrent writers must share forces, got " + forces + " for " + threads * perThread + " writes",
+                forces < threads * perThread / 2);
+        assertEquals(threads * perThread, reopen().queryAll().size());
+    }
+
+    /**
+     * Passes everything through to the log's channel, except that when armed it writes half of
+     * the next buffer and then throws, as a disk filling up mid-frame would, and that a force
+     * can be made to take as long as one on flash storage.
+     */
+    private static final class FaultyChannel extends FileChannel {
+        private final FileChannel delegate;
+        volatile boolean failNextWrite;
+        volatile long forceMillis;
+
+        FaultyChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!failNextWrite) {
+                return delegate.write(src);
+            }
+            failNextWrite = false;
+            ByteBuffer half = src.duplicate();
+            half.limit(src.position() + src.remaining() / 2);
+            delegate.write(half);
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+            if (forceMillis > 0) {
+                try {
+                    Thread.sleep(forceMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static String snapshot(TaskStore store) {
+        StringBuilder sb = new StringBuilder();
+        store.stream(task -> sb.append(task.getId()).append(':').append(task.getTitle()).append(':')
+                .append(task.getDescription()).append(':').append(task.isDone()).append(';'));
+        return sb.toString();
+    }
+
+    // Reopens the store over FaultyChannels; element 0 is the channel currently appended to
+    private FaultyChannel[] reopenFaulty() {
+        store.close();
+        FaultyChannel[] opened = new FaultyChannel[1];
+        store = new LogTaskStore(logFile) {
+            @Override
+            FileChannel openAppend() throws IOException {
+                opened[0] = new FaultyChannel(super.openAppend());
+                return opened[0];
+            }
+        };
+        return opened;
+    }
+
+    private TaskStore reopen() {
+        store.close();
+        store = new LogTaskStore(logFile);
+        return store;
+    }
+}
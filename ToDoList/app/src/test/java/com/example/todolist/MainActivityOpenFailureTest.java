@@ -0,0 +1,104 @@
+package com.example.todolist;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Looper;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * A migration step that fails while the database opens must leave MainActivity showing the
+ * error with a retry, not a progress bar that never ends, and the retry must open the list once
+ * the cause is gone.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityOpenFailureTest {
+
+    private static final int TASKS = 5;
+    private static final long OPEN_TIMEOUT_MS = 10_000;
+    // A version no step exists for, so the migrator throws when it reaches it
+    private static final int BAD_STEP = 99;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        TaskRepository seed = new TaskRepository(context);
+        for (int i = 0; i < TASKS; i++) {
+            seed.insertTask(new Task("Task " + i, "", "", ""));
+        }
+        seed.close();
+        TaskDbHelper dbHelper = new TaskDbHelper(context);
+        ContentValues values = new ContentValues();
+        values.put(TaskDbHelper.COLUMN_VERSION, BAD_STEP);
+        values.put(TaskDbHelper.COLUMN_LAST_ID, 0);
+        dbHelper.getWritableDatabase().insert(TaskDbHelper.TABLE_MIGRATIONS, null, values);
+        dbHelper.close();
+    }
+
+    @After
+    public void tearDown() {
+        TaskMetrics.setEnabled(false);
+        TaskMetrics.reset();
+    }
+
+    @Test
+    public void testFailedStepShowsErrorAndRetryOpens() throws InterruptedException {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+        awaitVisible(activity.buttonRetryOpening);
+
+        assertTrue(activity.textViewOpening.getText().toString(), activity.textViewOpening.getText().toString()
+                .contains("No migration to version " + BAD_STEP));
+        assertEquals(View.GONE, activity.progressBarOpening.getVisibility());
+        assertFalse("Nothing may touch the tasks", activity.buttonAdd.isEnabled());
+        assertNull(activity.taskAdapter);
+
+        // A rotation while failed shows the error again rather than opening a second time
+        controller.recreate();
+        activity = controller.get();
+        assertEquals(View.VISIBLE, activity.buttonRetryOpening.getVisibility());
+
+        TaskDbHelper dbHelper = new TaskDbHelper(context);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.delete(TaskDbHelper.TABLE_MIGRATIONS, TaskDbHelper.COLUMN_VERSION + "=?",
+                new String[]{String.valueOf(BAD_STEP)});
+        dbHelper.close();
+        activity.buttonRetryOpening.performClick();
+        assertEquals(View.GONE, activity.buttonRetryOpening.getVisibility());
+
+        long deadline = System.currentTimeMillis() + OPEN_TIMEOUT_MS;
+        while (activity.taskAdapter == null) {
+            assertTrue("The retry never opened the list", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        assertEquals(TASKS, activity.taskAdapter.getItemCount());
+        assertTrue(activity.buttonAdd.isEnabled());
+        assertEquals(View.GONE, activity.layoutOpening.getVisibility());
+
+        controller.pause().stop().destroy();
+    }
+
+    private static void awaitVisible(View view) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + OPEN_TIMEOUT_MS;
+        while (view.getVisibility() != View.VISIBLE) {
+            assertTrue("The failure was never shown", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+}
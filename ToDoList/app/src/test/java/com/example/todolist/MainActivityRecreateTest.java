@@ -0,0 +1,100 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Recreates MainActivity the way a rotation does and checks that the list, its undo history and
+ * the soft-deleted rows behind it survive.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityRecreateTest {
+
+    private static final int TASKS = 20;
+    private static final long OPEN_TIMEOUT_MS = 10_000;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        TaskRepository seed = new TaskRepository(context);
+        for (int i = 0; i < TASKS; i++) {
+            seed.insertTask(new Task("Task " + i, "Description " + i, "2025-01-01", "1h"));
+        }
+        seed.close();
+    }
+
+    @After
+    public void tearDown() {
+        TaskMetrics.setEnabled(false);
+        TaskMetrics.reset();
+    }
+
+    @Test
+    public void testUndoDeleteAfterRecreate() throws InterruptedException {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        TaskAdapter adapter = awaitOpened(controller.get());
+        adapter.onDeleteClicked(0);
+        assertEquals(TASKS - 1, adapter.getItemCount());
+
+        controller.recreate();
+        MainActivity recreated = controller.get();
+        assertSame("The list must be kept, not reloaded", adapter, awaitOpened(recreated));
+        assertSame(adapter, recreated.recyclerView.getAdapter());
+
+        // Reopening would have purged the soft-deleted row, leaving nothing to restore
+        assertTrue("The delete must still be undoable", adapter.undo());
+        awaitItemCount(adapter, TASKS);
+        assertEquals("Task 0", recreated.taskRepository.getAllTasks().get(0).getTitle());
+
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void testRecreateKeepsRepositoryOpen() throws InterruptedException {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        awaitOpened(controller.get());
+        TaskRepository repository = controller.get().taskRepository;
+
+        controller.recreate();
+        awaitOpened(controller.get());
+        assertSame(repository, controller.get().taskRepository);
+        assertEquals("The database must still be readable", TASKS, repository.getAllTasks().size());
+
+        controller.pause().stop().destroy();
+    }
+
+    // The session opens the database on a background thread and posts the list to the main looper
+    private static TaskAdapter awaitOpened(MainActivity activity) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + OPEN_TIMEOUT_MS;
+        while (activity.taskAdapter == null) {
+            assertTrue("The list never opened", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        return activity.taskAdapter;
+    }
+
+    private static void awaitItemCount(TaskAdapter adapter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + OPEN_TIMEOUT_MS;
+        while (adapter.getItemCount() != count) {
+            assertTrue("Expected " + count + " rows, have " + adapter.getItemCount(),
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+}
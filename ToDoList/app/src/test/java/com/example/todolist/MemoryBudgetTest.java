@@ -0,0 +1,127 @@
+package com.example.todolist;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap and allocation budgets for large task lists on the JVM: retained bytes per Task,
+ * allocated bytes per adapter operation, and allocation and GC work for a 100k-task load through
+ * TaskRepository. Results go to build/reports/memory/MemoryBudgetTest.json
+ */
+public class MemoryBudgetTest {
+
+    private static final int TASKS = 100_000;
+    private static final int OPS = 20_000;
+
+    // About 1.5x to 2x the values measured on JDK 17 with compressed oops, so only real
+    // regressions fail
+    private static final double TASK_RETAINED_BYTES = 400;
+    private static final double ADD_TASK_BYTES = 384;
+    private static final double TOGGLE_BYTES = 640;
+    private static final double REMOVE_BYTES = 640;
+    private static final double INSERT_BYTES = 192;
+    private static final double LOAD_BYTES_PER_TASK = 96;
+    private static final double LOAD_GC_COUNT = 10;
+
+    private static final MemoryBudgets budgets = new MemoryBudgets("MemoryBudgetTest");
+
+    @AfterClass
+    public static void writeReport() throws IOException {
+        budgets.writeReport();
+    }
+
+    /**
+     * Tasks as a database load creates them: every string is its own object
+     */
+    @Test
+    public void testRetainedHeapPerTask() {
+        List<Task> tasks = new ArrayList<>(TASKS);
+        long before = MemoryBudgets.usedHeapAfterGc();
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(newTask(i));
+        }
+        long after = MemoryBudgets.usedHeapAfterGc();
+        Reference.reachabilityFence(tasks);
+
+        budgets.check("task.retained", "bytes/task", (double) (after - before) / TASKS, TASK_RETAINED_BYTES);
+    }
+
+    @Test
+    public void testAllocationPerAdapterOperation() {
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore());
+        Task warmUp = newTask(OPS);
+        warmUp.setId((int) repository.insertTask(warmUp));
+        Task[] tasks = new Task[OPS];
+        for (int i = 0; i < OPS; i++) {
+            tasks[i] = newTask(i);
+            tasks[i].setId((int) repository.insertTask(tasks[i]));
+        }
+        // The inserts stay pending until addTask() flushes each one, so only the adapter's side
+        // of adding a row is counted
+        List<Task> taskList = new ArrayList<>(2 * OPS);
+        TaskAdapter adapter = new TaskAdapter(taskList, repository);
+        // One warm-up round so class loading and first-use allocations are not counted
+        adapter.addTask(warmUp);
+        adapter.onDoneClicked(0);
+        adapter.onDeleteClicked(0);
+
+        long add = AllocationCounter.bytesAllocatedBy(() -> {
+            for (Task task : tasks) {
+                adapter.addTask(task);
+            }
+        });
+        long toggle = AllocationCounter.bytesAllocatedBy(() -> {
+            for (int i = 0; i < OPS; i++) {
+                adapter.onDoneClicked(i);
+            }
+        });
+        long remove = AllocationCounter.bytesAllocatedBy(() -> {
+            for (int i = OPS - 1; i >= 0; i--) {
+                adapter.onDeleteClicked(i);
+            }
+        });
+
+        assertEquals(0, adapter.getItemCount());
+        budgets.check("adapter.addTask", "bytes/op", (double) add / OPS, ADD_TASK_BYTES);
+        budgets.check("adapter.toggle", "bytes/op", (double) toggle / OPS, TOGGLE_BYTES);
+        budgets.check("adapter.remove", "bytes/op", (double) remove / OPS, REMOVE_BYTES);
+    }
+
+    @Test
+    public void testHundredThousandTaskLoad() {
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore());
+        Task[] tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = newTask(i);
+        }
+        MemoryBudgets.usedHeapAfterGc();
+        long gcCount = MemoryBudgets.gcCount();
+        long gcMillis = MemoryBudgets.gcMillis();
+
+        long insert = AllocationCounter.bytesAllocatedBy(() -> {
+            for (Task task : tasks) {
+                repository.insertTask(task);
+            }
+        });
+        List<List<Task>> loaded = new ArrayList<>(1);
+        long load = AllocationCounter.bytesAllocatedBy(() -> loaded.add(repository.getAllTasks()));
+
+        long collections = MemoryBudgets.gcCount() - gcCount;
+        assertEquals(TASKS, loaded.get(0).size());
+        budgets.check("repository.insertTask", "bytes/op", (double) insert / TASKS, INSERT_BYTES);
+        budgets.check("repository.getAllTasks", "bytes/task", (double) load / TASKS, LOAD_BYTES_PER_TASK);
+        budgets.check("load100k.gcCount", "collections", collections, LOAD_GC_COUNT);
+        budgets.record("load100k.gcTime", "ms", MemoryBudgets.gcMillis() - gcMillis);
+    }
+
+    private static Task newTask(int i) {
+        return new Task("Task " + i, "Description " + i, String.format("%02d/01/2025", i % 28 + 1),
+                (i % 8) + "h");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.todolist;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Memory budgets shared by the budget tests. Every measurement is checked against its budget and
+ * collected into a JSON report, one file per suite, in the directory given by the
+ * {@code memoryReportDir} system property.
+ */
+final class MemoryBudgets {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final String suite;
+    private final List<String> entries = new ArrayList<>();
+
+    MemoryBudgets(String suite) {
+        this.suite = suite;
+    }
+
+    /**
+     * Records a measurement and fails the test if it is over budget.
+     */
+    synchronized void check(String name, String unit, double value, double budget) {
+        boolean passed = value <= budget;
+        entries.add(String.format(Locale.US,
+                "{\"name\": \"%s\", \"unit\": \"%s\", \"value\": %.1f, \"budget\": %.1f, \"passed\": %b}",
+                name, unit, value, budget, passed));
+        Benchmarks.report(name, "%.1f %s (budget %.1f)", value, unit, budget);
+        assertTrue(String.format(Locale.US, "%s is %.1f %s, over its budget of %.1f", name, value, unit, budget),
+                passed);
+    }
+
+    /**
+     * Records a measurement that has no budget, for the report only.
+     */
+    synchronized void record(String name, String unit, double value) {
+        entries.add(String.format(Locale.US, "{\"name\": \"%s\", \"unit\": \"%s\", \"value\": %.1f}",
+                name, unit, value));
+        Benchmarks.report(name, "%.1f %s", value, unit);
+    }
+
+    synchronized void writeReport() throws IOException {
+        File dir = new File(System.getProperty("memoryReportDir", "build/reports/memory"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        try (Writer out = new FileWriter(new File(dir, suite + ".json"))) {
+            out.write("{\"suite\": \"" + suite + "\", \"jvm\": \"" + System.getProperty("java.vm.version")
+                    + "\", \"measurements\": [\n");
+            for (int i = 0; i < entries.size(); i++) {
+                out.write("  " + entries.get(i) + (i + 1 < entries.size() ? ",\n" : "\n"));
+            }
+            out.write("]}\n");
+        }
+    }
+
+    /**
+     * Heap in use after collecting garbage until the figure stops dropping.
+     */
+    static long usedHeapAfterGc() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = MEMORY.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return used;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retained heap per bound adapter row, on Robolectric: the TaskRowView, its holder and the text
+ * layouts cached for it. Reported, without a budget, to build/reports/memory/RowMemoryBudgetTest.json
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RowMemoryBudgetTest {
+
+    private static final int ROWS = 200;
+
+    private static final MemoryBudgets budgets = new MemoryBudgets("RowMemoryBudgetTest");
+
+    @AfterClass
+    public static void writeReport() throws IOException {
+        budgets.writeReport();
+    }
+
+    @Test
+    public void testRetainedHeapPerRow() {
+        Context context = RuntimeEnvironment.getApplication();
+        List<Task> taskList = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            taskList.add(new Task(i + 1, "Task " + i, "Description " + i, "01/01/2025", (i % 8) + "h", false));
+        }
+        TaskAdapter adapter = new TaskAdapter(taskList);
+        RecyclerView parent = new RecyclerView(context);
+        parent.setLayoutManager(new LinearLayoutManager(context));
+        // The first row pays for the shared style and layout cache, which are not per row
+        bindRow(adapter, parent, 0);
+
+        List<TaskAdapter.TaskViewHolder> holders = new ArrayList<>(ROWS);
+        long before = MemoryBudgets.usedHeapAfterGc();
+        for (int i = 1; i < ROWS; i++) {
+            holders.add(bindRow(adapter, parent, i));
+        }
+        long after = MemoryBudgets.usedHeapAfterGc();
+        Reference.reachabilityFence(holders);
+
+        // Recorded, not enforced: a row is one view plus four cached layouts, but the figure has not
+        // been measured yet, so there is no value to derive a budget from
+        budgets.record("adapter.row.retained", "bytes/row", (double) (after - before) / (ROWS - 1));
+    }
+
+    private static TaskAdapter.TaskViewHolder bindRow(TaskAdapter adapter, RecyclerView parent, int position) {
+        TaskAdapter.TaskViewHolder holder = adapter.onCreateViewHolder(parent, 0);
+        adapter.onBindViewHolder(holder, position);
+        holder.row.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        return holder;
+    }
+}
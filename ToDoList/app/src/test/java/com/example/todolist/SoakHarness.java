@@ -0,0 +1,228 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded load generator that drives a real TaskAdapter, TaskRepository and TaskPurger the way
+ * MainActivity wires them. Operations are drawn from the seed and the current list size only, so
+ * the same seed replays the same run. Every window it checks the adapter against the database
+ * and writes one CSV row of throughput, latency percentiles and heap.
+ */
+final class SoakHarness {
+
+    enum Op { ADD, TOGGLE, DELETE, BATCH_DONE, BATCH_DELETE, SCROLL }
+
+    static final String CSV_HEADER = "window,ops,elapsed_s,ops_per_s,tasks,heap_after_gc_mb,"
+            + "all_p50_us,all_p99_us,all_p999_us,all_max_us,"
+            + "add_p99_us,toggle_p99_us,delete_p99_us,batch_done_p99_us,batch_delete_p99_us,scroll_p99_us";
+
+    // The list hovers around this size: adds win below it, deletes above it
+    private static final int TARGET_TASKS = 2_000;
+    private static final int VISIBLE_ROWS = 12;
+    private static final int ROW_WIDTH = 1080;
+
+    private final Random random;
+    private final TaskRepository taskRepository;
+    private final TaskPurger taskPurger;
+    private final List<Task> taskList = new ArrayList<>();
+    private final TaskAdapter taskAdapter;
+    private final TaskAdapter.TaskViewHolder[] holders = new TaskAdapter.TaskViewHolder[VISIBLE_ROWS];
+    private final LatencyHistogram all = new LatencyHistogram();
+    private final LatencyHistogram[] byOp = new LatencyHistogram[Op.values().length];
+    private int firstVisible;
+    private long ops;
+
+    SoakHarness(Context context, long seed) {
+        random = new Random(seed);
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        taskRepository = new TaskRepository(context);
+        taskPurger = new TaskPurger(taskRepository);
+        taskAdapter = new TaskAdapter(taskList, taskRepository, taskPurger);
+        RecyclerView parent = new RecyclerView(context);
+        parent.setLayoutManager(new LinearLayoutManager(context));
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = taskAdapter.onCreateViewHolder(parent, 0);
+        }
+        for (int i = 0; i < byOp.length; i++) {
+            byOp[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Runs this many operations, checking consistency and writing a CSV row every window.
+     */
+    void run(long count, int window, Writer csv) throws IOException {
+        csv.write(CSV_HEADER + "\n");
+        long start = System.nanoTime();
+        long windowStart = start;
+        int windowIndex = 0;
+        for (long done = 0; done < count; ) {
+            int batch = (int) Math.min(window, count - done);
+            for (int i = 0; i < batch; i++) {
+                step();
+            }
+            done += batch;
+            long now = System.nanoTime();
+            double seconds = (now - windowStart) / 1e9;
+            // Checkpoint work is not part of the measured window
+            checkConsistency();
+            long heap = MemoryBudgets.usedHeapAfterGc();
+            csv.write(String.format(Locale.US, "%d,%d,%.3f,%.0f,%d,%.1f,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s%n",
+                    windowIndex++, done, (now - start) / 1e9, batch / seconds, taskList.size(), heap / 1048576.0,
+                    micros(all, 50), micros(all, 99), micros(all, 99.9), micros(all.getMax()),
+                    micros(byOp[Op.ADD.ordinal()], 99), micros(byOp[Op.TOGGLE.ordinal()], 99),
+                    micros(byOp[Op.DELETE.ordinal()], 99), micros(byOp[Op.BATCH_DONE.ordinal()], 99),
+                    micros(byOp[Op.BATCH_DELETE.ordinal()], 99), micros(byOp[Op.SCROLL.ordinal()], 99)));
+            csv.flush();
+            all.reset();
+            for (LatencyHistogram histogram : byOp) {
+                histogram.reset();
+            }
+            windowStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * The adapter's rows must be exactly the live rows in the database, with the same done state.
+     */
+    void checkConsistency() {
+        if (taskAdapter.getItemCount() != taskList.size()) {
+            throw new AssertionError("Adapter reports " + taskAdapter.getItemCount() + " rows for "
+                    + taskList.size() + " tasks after " + ops + " ops");
+        }
+        Map<Integer, Boolean> stored = new HashMap<>();
+        for (Task task : taskRepository.getAllTasks()) {
+            stored.put(task.getId(), task.isDone());
+        }
+        if (stored.size() != taskList.size()) {
+            throw new AssertionError(stored.size() + " live rows in the database for " + taskList.size()
+                    + " tasks in the adapter after " + ops + " ops");
+        }
+        for (Task task : taskList) {
+            Boolean isDone = stored.get(task.getId());
+            if (isDone == null || isDone != task.isDone()) {
+                throw new AssertionError("Task " + task.getId() + " is done=" + task.isDone()
+                        + " in the adapter but " + (isDone == null ? "missing" : "done=" + isDone)
+                        + " in the database after " + ops + " ops");
+            }
+        }
+    }
+
+    /**
+     * Ids and done flags of the adapter's rows in order; equal across runs with the same seed.
+     */
+    long fingerprint() {
+        long hash = 17;
+        for (Task task : taskList) {
+            hash = hash * 31 + task.getId();
+            hash = hash * 31 + (task.isDone() ? 1 : 0);
+        }
+        return hash;
+    }
+
+    int size() {
+        return taskList.size();
+    }
+
+    void close() {
+        taskPurger.shutdown(taskRepository::close);
+    }
+
+    private void step() {
+        Op op = nextOp();
+        long startNanos = System.nanoTime();
+        switch (op) {
+            case ADD: {
+                // As MainActivity.onActivityResult does it
+                Task task = new Task("Soak " + ops, "Generated by the soak run " + ops,
+                        "01/0" + (1 + random.nextInt(9)) + "/2025", random.nextInt(8) + "h");
+                task.setId((int) taskRepository.insertTask(task));
+                taskAdapter.addTask(task);
+                break;
+            }
+            case TOGGLE:
+                taskAdapter.onDoneClicked(random.nextInt(taskList.size()));
+                break;
+            case DELETE:
+                taskAdapter.onDeleteClicked(random.nextInt(taskList.size()));
+                break;
+            case BATCH_DONE:
+            case BATCH_DELETE: {
+                int first = random.nextInt(taskList.size());
+                int length = 1 + random.nextInt(Math.min(op == Op.BATCH_DONE ? 40 : 10, taskList.size() - first));
+                for (int position = first; position < first + length; position++) {
+                    taskAdapter.toggleSelection(position);
+                }
+                if (op == Op.BATCH_DONE) {
+                    taskAdapter.markSelectedDone(random.nextBoolean());
+                } else {
+                    taskAdapter.deleteSelected();
+                }
+                break;
+            }
+            case SCROLL:
+                scroll(random.nextInt(2 * VISIBLE_ROWS + 1) - VISIBLE_ROWS);
+                break;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        all.record(nanos);
+        byOp[op.ordinal()].record(nanos);
+        ops++;
+    }
+
+    private Op nextOp() {
+        if (taskList.isEmpty()) {
+            return Op.ADD;
+        }
+        boolean growing = taskList.size() < TARGET_TASKS;
+        int roll = random.nextInt(100);
+        if (roll < 30) {
+            return Op.SCROLL;
+        } else if (roll < 55) {
+            return Op.TOGGLE;
+        } else if (roll < 85) {
+            return growing ? Op.ADD : Op.DELETE;
+        } else if (roll < 95) {
+            return growing ? Op.DELETE : Op.ADD;
+        } else if (roll < 99) {
+            return Op.BATCH_DONE;
+        }
+        return Op.BATCH_DELETE;
+    }
+
+    // Rows that scroll into view are bound and measured, reusing the holders that left it
+    private void scroll(int rows) {
+        int last = Math.max(0, taskList.size() - VISIBLE_ROWS);
+        int target = Math.max(0, Math.min(last, firstVisible + rows));
+        int from = rows >= 0 ? Math.max(target, firstVisible + VISIBLE_ROWS) : target;
+        int to = rows >= 0 ? target + VISIBLE_ROWS : Math.min(firstVisible, target + VISIBLE_ROWS);
+        for (int position = from; position < Math.min(to, taskList.size()); position++) {
+            TaskAdapter.TaskViewHolder holder = holders[position % VISIBLE_ROWS];
+            taskAdapter.onBindViewHolder(holder, position);
+            holder.row.measure(View.MeasureSpec.makeMeasureSpec(ROW_WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        }
+        firstVisible = target;
+    }
+
+    private static String micros(LatencyHistogram histogram, double percentile) {
+        return histogram.getCount() == 0 ? "" : micros(histogram.getPercentile(percentile));
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.US, "%.1f", nanos / 1e3);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.todolist;
+
+import android.content.Context;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Soak runs of the adapter and repository stack on Robolectric. The regular run is short; a long
+ * one is started with {@code ./gradlew test --tests '*SoakTest' -PsoakOps=2000000 -PsoakSeed=7}
+ * and writes build/reports/soak/soak-&lt;seed&gt;.csv
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SoakTest {
+
+    private static final long OPS = Long.getLong("soakOps", 10_000);
+    private static final long SEED = Long.getLong("soakSeed", 1);
+    // About a hundred CSV rows per run
+    private static final int WINDOW = (int) Math.max(1_000, OPS / 100);
+
+    @Test
+    public void testSoakStaysConsistent() throws IOException {
+        Context context = RuntimeEnvironment.getApplication();
+        File dir = new File(System.getProperty("soakReportDir", "build/reports/soak"));
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        File report = new File(dir, "soak-" + SEED + ".csv");
+
+        SoakHarness harness = new SoakHarness(context, SEED);
+        try (Writer csv = new FileWriter(report)) {
+            harness.run(OPS, WINDOW, csv);
+        } finally {
+            harness.close();
+        }
+        Benchmarks.report("Soak", "%d ops with seed %d: %d tasks left, report in %s",
+                OPS, SEED, harness.size(), report);
+    }
+
+    @Test
+    public void testSameSeedReplaysSameRun() throws IOException {
+        Context context = RuntimeEnvironment.getApplication();
+        long[] fingerprints = new long[2];
+        for (int run = 0; run < fingerprints.length; run++) {
+            SoakHarness harness = new SoakHarness(context, 42);
+            StringWriter csv = new StringWriter();
+            harness.run(5_000, 1_000, csv);
+            fingerprints[run] = harness.fingerprint();
+            harness.close();
+            assertEquals("Header and one row per window", 6, csv.toString().split("\n").length);
+        }
+        assertEquals(fingerprints[0], fingerprints[1]);
+    }
+}
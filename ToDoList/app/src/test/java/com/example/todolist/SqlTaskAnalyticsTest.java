@@ -0,0 +1,166 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The SQL report against the fork-join one on Robolectric's SQLite, and the benchmark of both
+ * over a million rows
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SqlTaskAnalyticsTest {
+
+    private static final int TODAY = TaskAnalyticsTest.TODAY;
+    private static final int BENCHMARK_ROWS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    private TaskDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        dbHelper = new TaskDbHelper(context);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void testUnreadableValuesMatch() {
+        List<String> deadlines = Arrays.asList(null, "", "1/1/2025", "01/01/2025", "31/2/2024", "32/1/2025",
+                "1/13/2025", "1/1/0000", "1/1/25", "1-1-2025", "1/1/2025 ", "9/6/2025", "15/6/2025", "a/b/cdef");
+        List<String> durations = Arrays.asList(null, "", "2h", " 2 H ", "90m", "3", "h", "1.5h", "-2h",
+                "1000000h", "999999m", "2 hours");
+        List<Task> tasks = new ArrayList<>();
+        int id = 1;
+        for (String deadline : deadlines) {
+            for (String duration : durations) {
+                tasks.add(new Task(id, "Task " + id, "", deadline, duration, id % 3 == 0));
+                id++;
+            }
+        }
+        insert(tasks, 0);
+
+        assertEquals(new TaskAnalytics().report(tasks, TODAY), new SqlTaskAnalytics(dbHelper).report(TODAY));
+    }
+
+    @Test
+    public void testReportsMatch() {
+        Random random = new Random(5);
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 1; id <= 20_000; id++) {
+            tasks.add(TaskAnalyticsTest.randomTask(random, id));
+        }
+        insert(tasks, 10);
+        TaskRepository repository = new TaskRepository(new SqliteTaskStore(dbHelper));
+        List<Task> live = repository.getAllTasks();
+
+        TaskReport expected = new TaskAnalytics().report(live, TODAY);
+        assertEquals(expected, new TaskAnalytics().report(repository, TODAY));
+        assertEquals(expected, new SqlTaskAnalytics(dbHelper).report(TODAY));
+        assertEquals(live.size(), expected.getTotal().getTasks());
+        assertTrue(live.size() < tasks.size());
+    }
+
+    @Test
+    public void benchmarkMillionRows() {
+        Benchmarks.assumeEnabled();
+        Random random = new Random(7);
+        List<Task> tasks = new ArrayList<>(BENCHMARK_ROWS);
+        for (int id = 1; id <= BENCHMARK_ROWS; id++) {
+            tasks.add(TaskAnalyticsTest.randomTask(random, id));
+        }
+        insert(tasks, 0);
+        TaskRepository repository = new TaskRepository(new SqliteTaskStore(dbHelper));
+        SqlTaskAnalytics sql = new SqlTaskAnalytics(dbHelper);
+        TaskAnalytics analytics = new TaskAnalytics();
+        TaskReport expected = sequential(tasks);
+
+        long[] sequentialNanos = new long[ROUNDS];
+        long[] inMemoryNanos = new long[ROUNDS];
+        long[] streamedNanos = new long[ROUNDS];
+        long[] sqlNanos = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            TaskReport[] reports = new TaskReport[4];
+            sequentialNanos[round] = Benchmarks.timeNanos(() -> reports[0] = sequential(tasks));
+            inMemoryNanos[round] = Benchmarks.timeNanos(() -> reports[1] = analytics.report(tasks, TODAY));
+            streamedNanos[round] = Benchmarks.timeNanos(() -> reports[2] = analytics.report(repository, TODAY));
+            sqlNanos[round] = Benchmarks.timeNanos(() -> reports[3] = sql.report(TODAY));
+            for (TaskReport report : reports) {
+                assertEquals(expected, report);
+            }
+        }
+
+        report("sequential", sequentialNanos);
+        report("forkJoin", inMemoryNanos);
+        report("forkJoinStreamed", streamedNanos);
+        report("sqlGroupBy", sqlNanos);
+    }
+
+    private static TaskReport sequential(List<Task> tasks) {
+        TaskStats stats = new TaskStats(TODAY);
+        for (Task task : tasks) {
+            stats.add(task);
+        }
+        return stats.toReport();
+    }
+
+    private static void report(String name, long[] nanos) {
+        long first = nanos[0];
+        Arrays.sort(nanos);
+        Benchmarks.report("analytics." + name, "%d rows, first %.0f ms, median %.0f ms",
+                BENCHMARK_ROWS, first / 1e6, nanos[ROUNDS / 2] / 1e6);
+    }
+
+    // Every deletedEvery-th task is inserted soft-deleted, when deletedEvery is positive
+    private void insert(List<Task> tasks, int deletedEvery) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("INSERT INTO " + TaskDbHelper.TABLE_NAME + " ("
+                + TaskDbHelper.COLUMN_ID + ", " + TaskDbHelper.COLUMN_TITLE + ", " + TaskDbHelper.COLUMN_DESCRIPTION
+                + ", " + TaskDbHelper.COLUMN_DEADLINE + ", " + TaskDbHelper.COLUMN_DURATION + ", "
+                + TaskDbHelper.COLUMN_IS_DONE + ", " + TaskDbHelper.COLUMN_IS_DELETED
+                + ") VALUES (?, ?, '', ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (Task task : tasks) {
+                statement.clearBindings();
+                statement.bindLong(1, task.getId());
+                statement.bindString(2, task.getTitle());
+                bindNullable(statement, 3, task.getDeadline());
+                bindNullable(statement, 4, task.getDuration());
+                statement.bindLong(5, task.isDone() ? 1 : 0);
+                statement.bindLong(6, deletedEvery > 0 && task.getId() % deletedEvery == 0 ? 1 : 0);
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
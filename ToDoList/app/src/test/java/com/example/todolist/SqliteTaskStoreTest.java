@@ -0,0 +1,154 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the TaskStore conformance suite against SqliteTaskStore, on Robolectric's SQLite, plus
+ * the preview and deflated description storage, closing, and the upgrade from version 2
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SqliteTaskStoreTest extends TaskStoreContractTest {
+
+    static final String VERSION_2_TABLE = "CREATE TABLE tasks (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "title TEXT NOT NULL, description TEXT, deadline TEXT, duration TEXT, "
+            + "is_done INTEGER DEFAULT 0, is_deleted INTEGER DEFAULT 0);";
+
+    private TaskDbHelper dbHelper;
+
+    @Override
+    protected TaskStore createStore() {
+        Context context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        dbHelper = new TaskDbHelper(context);
+        return new SqliteTaskStore(dbHelper);
+    }
+
+    @Test
+    public void testLongDescriptionsAreDeflatedOutsideTheList() {
+        String text = longText(4_000);
+        int longId = (int) store.insert(new Task("Long", text, "", ""));
+        int shortId = (int) store.insert(new Task("Short", "Short text", "", ""));
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_DESCRIPTIONS));
+        Cursor cursor = db.rawQuery("SELECT description, length(deflated) FROM tasks JOIN task_descriptions"
+                + " ON id = task_id WHERE id = " + longId, null);
+        assertTrue(cursor.moveToFirst());
+        assertTrue(cursor.isNull(0));
+        assertTrue("Deflated text must be smaller", cursor.getInt(1) < text.length() / 2);
+        cursor.close();
+
+        Task listed = store.query(new int[]{longId}).get(0);
+        assertTrue(listed.isDescriptionPreview());
+        assertEquals(DescriptionCodec.PREVIEW_LENGTH, listed.getDescription().length());
+        assertFalse(store.query(new int[]{shortId}).get(0).isDescriptionPreview());
+        assertEquals("Inline text needs no preview copy", 1, DatabaseUtils.queryNumEntries(db,
+                TaskDbHelper.TABLE_NAME, "description_preview IS NULL AND id = " + shortId));
+        assertEquals("Short text", store.query(new int[]{shortId}).get(0).getDescription());
+        assertEquals(text, store.get(longId).getDescription());
+        assertEquals(text, new TaskRepository(store).getDescription(listed));
+
+        store.updateDeleted(new int[]{longId}, true);
+        store.deleteAllDeleted();
+        assertEquals("Purged tasks must not leave their text behind",
+                0, DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_DESCRIPTIONS));
+    }
+
+    @Test
+    public void testUpgradeFromVersion2SplitsDescriptions() {
+        store.close();
+        Context context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        String text = longText(3_000);
+        SQLiteDatabase old = createVersion2(context.getDatabasePath(TaskDbHelper.DATABASE_NAME));
+        old.execSQL("INSERT INTO tasks (title, description) VALUES ('Long', ?)", new Object[]{text});
+        old.execSQL("INSERT INTO tasks (title, description) VALUES ('Short', 'Short text')");
+        old.execSQL("INSERT INTO tasks (title, description) VALUES ('Null', NULL)");
+        old.close();
+
+        dbHelper = new TaskDbHelper(context);
+        new TaskMigrator(dbHelper).run((rowsDone, rowsTotal) -> { });
+        store = new SqliteTaskStore(dbHelper);
+        assertEquals(text, store.get(1).getDescription());
+        assertEquals("Short text", store.get(2).getDescription());
+        assertNull(store.get(3).getDescription());
+        assertTrue(store.queryAll().get(0).isDescriptionPreview());
+        assertEquals("Short text", store.queryAll().get(1).getDescription());
+    }
+
+    @Test
+    public void testClosedStoreThrows() {
+        store.insert(new Task("Task", "", "", ""));
+        store.close();
+
+        try {
+            store.queryAll();
+            fail("A closed store must not reopen the database");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            store.insert(new Task("After", "", "", ""));
+            fail("A closed store must not reopen the database");
+        } catch (IllegalStateException expected) {
+        }
+        store.close();
+    }
+
+    @Test
+    public void testCloseWaitsForReadInFlight() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            store.insert(new Task("Task " + i, "", "", ""));
+        }
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch closing = new CountDownLatch(1);
+        AtomicInteger read = new AtomicInteger();
+        Thread reader = new Thread(() -> store.stream(task -> {
+            if (read.getAndIncrement() == 0) {
+                reading.countDown();
+                try {
+                    closing.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }));
+        reader.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        Thread closer = new Thread(store::close);
+        closer.start();
+        closer.join(200);
+        assertTrue("close() must wait for the read", closer.isAlive());
+        closing.countDown();
+        reader.join(5_000);
+        closer.join(5_000);
+
+        assertFalse(closer.isAlive());
+        assertEquals("The read must finish on the open database", 10, read.get());
+    }
+
+    /**
+     * Creates a database in the version 2 layout, before descriptions were split
+     */
+    static SQLiteDatabase createVersion2(File file) {
+        file.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        db.execSQL(VERSION_2_TABLE);
+        db.setVersion(2);
+        return db;
+    }
+}
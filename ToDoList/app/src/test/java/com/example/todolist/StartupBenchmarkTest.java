@@ -0,0 +1,119 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times each launch phase MainActivity runs, on Robolectric: the background open, purge and load
+ * of TaskStartup, then the first bind of a screenful of rows. A phase whose median goes over its
+ * budget fails the run, so startup regressions show up here before they show up on a device
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StartupBenchmarkTest {
+
+    private static final int TASKS = 2_000;
+    private static final int DELETED = 50;
+    private static final int VISIBLE_ROWS = 12;
+    private static final int ROUNDS = 20;
+
+    // Medians on a desktop JVM are a small fraction of these; they catch a phase growing by multiples
+    private static final long DB_OPEN_BUDGET_MS = 50;
+    private static final long PURGE_BUDGET_MS = 50;
+    private static final long LOAD_BUDGET_MS = 100;
+    private static final long FIRST_BIND_BUDGET_MS = 200;
+
+    @After
+    public void tearDown() {
+        TaskMetrics.setEnabled(false);
+        TaskMetrics.reset();
+    }
+
+    @Test
+    public void benchmarkStartupPhases() throws IOException {
+        Benchmarks.assumeEnabled();
+        Context context = RuntimeEnvironment.getApplication();
+        File database = context.getDatabasePath(TaskDbHelper.DATABASE_NAME);
+        File template = new File(database.getParentFile(), "startup_template.db");
+        seed(context);
+        Files.copy(database.toPath(), template.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        TaskMetrics.setEnabled(true);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            // Every round starts from the same file, soft-deleted rows included
+            context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+            Files.copy(template.toPath(), database.toPath());
+            if (round == 1) {
+                // The first round loads classes and warms the JIT
+                TaskMetrics.reset();
+            }
+            TaskStartup startup = TaskStartup.open(new TaskDbHelper(context), (rowsDone, rowsTotal) -> { });
+            assertEquals(TASKS - DELETED, startup.tasks.size());
+
+            long startNanos = TaskMetrics.start();
+            bindFirstScreen(context, startup);
+            TaskMetrics.stop(TaskMetrics.Timer.STARTUP_FIRST_BIND, startNanos);
+            startup.repository.close();
+        }
+
+        assertTrue(template.delete());
+        check(TaskMetrics.Timer.STARTUP_DB_OPEN, DB_OPEN_BUDGET_MS);
+        check(TaskMetrics.Timer.STARTUP_PURGE, PURGE_BUDGET_MS);
+        check(TaskMetrics.Timer.STARTUP_LOAD, LOAD_BUDGET_MS);
+        check(TaskMetrics.Timer.STARTUP_FIRST_BIND, FIRST_BIND_BUDGET_MS);
+    }
+
+    // A database as a previous session leaves it, with some soft-deleted rows to purge
+    private static void seed(Context context) {
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        TaskRepository repository = new TaskRepository(context);
+        int[] deleted = new int[DELETED];
+        for (int i = 0; i < TASKS; i++) {
+            int id = (int) repository.insertTask(new Task("Task " + i, "Description " + i, "01/01/2025", (i % 8) + "h"));
+            if (i % (TASKS / DELETED) == 0) {
+                deleted[i / (TASKS / DELETED)] = id;
+            }
+        }
+        repository.softDeleteTasks(deleted);
+        // Closing checkpoints the write-ahead log, so the file alone holds every row
+        repository.close();
+    }
+
+    private static void bindFirstScreen(Context context, TaskStartup startup) {
+        List<Task> taskList = new ArrayList<>(startup.tasks);
+        TaskAdapter adapter = new TaskAdapter(taskList, startup.repository);
+        RecyclerView parent = new RecyclerView(context);
+        parent.setLayoutManager(new LinearLayoutManager(context));
+        for (int position = 0; position < VISIBLE_ROWS; position++) {
+            TaskAdapter.TaskViewHolder holder = adapter.onCreateViewHolder(parent, 0);
+            adapter.onBindViewHolder(holder, position);
+            holder.row.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        }
+    }
+
+    private static void check(TaskMetrics.Timer timer, long budgetMs) {
+        LatencyHistogram histogram = timer.getHistogram();
+        double p50Ms = histogram.getPercentile(50) / 1e6;
+        Benchmarks.report(timer.label, "p50 %.2f ms, max %.2f ms over %d rounds (budget %d ms)",
+                p50Ms, histogram.getMax() / 1e6, histogram.getCount(), budgetMs);
+        assertTrue(timer.label + " median " + p50Ms + " ms is over its budget of " + budgetMs + " ms",
+                p50Ms <= budgetMs);
+    }
+}
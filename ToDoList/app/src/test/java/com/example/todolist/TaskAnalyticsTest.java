@@ -0,0 +1,145 @@
+package com.example.todolist;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for deadline and duration parsing, the mergeable accumulators and the fork-join report,
+ * streamed from an in-memory repository
+ */
+public class TaskAnalyticsTest {
+
+    static final int TODAY = TaskReport.epochDay(2025, 6, 15);
+
+    @Test
+    public void testDays() {
+        assertEquals(0, TaskReport.epochDay(1970, 1, 1));
+        assertEquals(-1, TaskReport.epochDay(1969, 12, 31));
+        assertEquals(19_782, TaskReport.epochDay(2024, 2, 29));
+        assertEquals(TaskReport.epochDay(2025, 3, 3), TaskReport.epochDay(2025, 2, 31));
+        assertEquals("2025-06-15", TaskReport.formatDay(TODAY));
+        assertEquals("2025-06-09", TaskReport.formatDay(TaskReport.weekStart(TODAY)));
+        assertEquals(TaskReport.epochDay(1969, 12, 29), TaskReport.weekStart(-1));
+    }
+
+    @Test
+    public void testDeadlineDay() {
+        assertEquals(TaskReport.epochDay(2025, 1, 1), TaskStats.deadlineDay("1/1/2025"));
+        assertEquals(TaskReport.epochDay(2025, 1, 1), TaskStats.deadlineDay("01/01/2025"));
+        assertEquals(TaskReport.epochDay(2025, 12, 31), TaskStats.deadlineDay("31/12/2025"));
+        for (String unreadable : Arrays.asList(null, "", "32/1/2025", "1/13/2025", "0/1/2025", "1/1/0000",
+                "1/1/25", "111/1/2025", "1/1/2025 ", "1-1-2025", "1/1/2025/", "+1/1/2025")) {
+            assertEquals(unreadable, TaskReport.NO_WEEK, TaskStats.deadlineDay(unreadable));
+        }
+    }
+
+    @Test
+    public void testDurationMinutes() {
+        assertEquals(120, TaskStats.durationMinutes("2h"));
+        assertEquals(120, TaskStats.durationMinutes(" 2 H "));
+        assertEquals(90, TaskStats.durationMinutes("90m"));
+        assertEquals(180, TaskStats.durationMinutes("3"));
+        for (String unreadable : Arrays.asList(null, "", "h", "1.5h", "2 hours", "-2h", "2hh", "1000000h")) {
+            assertEquals(unreadable, 0, TaskStats.durationMinutes(unreadable));
+        }
+    }
+
+    @Test
+    public void testReportCounts() {
+        List<Task> tasks = Arrays.asList(
+                new Task(1, "Done", "", "10/6/2025", "2h", true),
+                new Task(2, "Overdue", "", "11/6/2025", "30m", false),
+                new Task(3, "Due", "", "16/6/2025", "1h", false),
+                new Task(4, "Next week", "", "17/6/2025", "3", true),
+                new Task(5, "Undated", "", "", "1h", false));
+        TaskReport report = new TaskAnalytics().report(tasks, TODAY);
+
+        assertEquals(2, report.getWeeks().size());
+        TaskReport.Week week = report.getWeeks().get(0);
+        assertEquals(TaskReport.epochDay(2025, 6, 9), week.getWeekStart());
+        assertEquals(2, week.getTasks());
+        assertEquals(1, week.getDone());
+        assertEquals(150, week.getPlannedMinutes());
+        assertEquals(120, week.getCompletedMinutes());
+        assertEquals(1, week.getOverdue());
+        assertEquals(TaskReport.epochDay(2025, 6, 16), report.getWeeks().get(1).getWeekStart());
+        assertEquals(2, report.getWeeks().get(1).getTasks());
+        assertEquals(1, report.getUndated().getTasks());
+        assertEquals(0, report.getUndated().getOverdue());
+        assertEquals(5, report.getTotal().getTasks());
+        assertEquals(0.4, report.getTotal().getCompletionRate(), 1e-9);
+        assertEquals(450, report.getTotal().getPlannedMinutes());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReportIsImmutable() {
+        new TaskAnalytics().report(new ArrayList<>(), TODAY).getWeeks().add(null);
+    }
+
+    @Test
+    public void testForkJoinMatchesSequential() {
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        List<Task> tasks = new ArrayList<>();
+        Random random = new Random(3);
+        for (int id = 1; id <= 100_000; id++) {
+            Task task = randomTask(random, id);
+            tasks.add(task);
+            store.put(new TaskRecord(id, task.getTitle(), task.getDescription(), task.getDeadline(),
+                    task.getDuration(), task.isDone(), false));
+        }
+        TaskStats sequential = new TaskStats(TODAY);
+        for (Task task : tasks) {
+            sequential.add(task);
+        }
+        TaskReport expected = sequential.toReport();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TaskAnalytics analytics = new TaskAnalytics(pool);
+            assertEquals(expected, analytics.report(tasks, TODAY));
+            assertEquals(expected, analytics.report(new TaskRepository(store), TODAY));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(100_000, expected.getTotal().getTasks());
+        assertTrue(expected.getWeeks().size() > 200);
+    }
+
+    /**
+     * A task from about five years of history, with the occasional unreadable deadline or duration
+     */
+    static Task randomTask(Random random, int id) {
+        int day = TODAY - 5 * 365 + random.nextInt(5 * 365 + 60);
+        String[] date = TaskReport.formatDay(day).split("-");
+        String deadline;
+        int roll = random.nextInt(100);
+        if (roll < 3) {
+            deadline = "";
+        } else if (roll < 4) {
+            deadline = "someday";
+        } else if (roll < 50) {
+            deadline = Integer.parseInt(date[2]) + "/" + Integer.parseInt(date[1]) + "/" + date[0];
+        } else {
+            deadline = date[2] + "/" + date[1] + "/" + date[0];
+        }
+        String duration;
+        roll = random.nextInt(100);
+        if (roll < 5) {
+            duration = "";
+        } else if (roll < 6) {
+            duration = "a while";
+        } else if (roll < 30) {
+            duration = (15 * (1 + random.nextInt(8))) + "m";
+        } else {
+            duration = (1 + random.nextInt(8)) + "h";
+        }
+        boolean isDone = random.nextInt(100) < (day < TODAY ? 70 : 10);
+        return new Task(id, "Task " + id, "", deadline, duration, isDone);
+    }
+}
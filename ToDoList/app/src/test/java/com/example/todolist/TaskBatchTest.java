@@ -0,0 +1,233 @@
+package com.example.todolist;
+
+import android.content.Context;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multi-select batch operations in TaskAdapter and TaskRepository, on Robolectric's SQLite
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskBatchTest {
+
+    private TaskRepository taskRepository;
+    private List<Task> taskList;
+    private TaskAdapter taskAdapter;
+    private CountingObserver observer;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        taskRepository = new TaskRepository(context);
+        taskList = new ArrayList<>();
+        taskAdapter = new TaskAdapter(taskList, taskRepository);
+        observer = new CountingObserver();
+        taskAdapter.registerAdapterDataObserver(observer);
+    }
+
+    @Test
+    public void testBatchMarkDoneCoalescesNotifications() {
+        insertTasks(500);
+        observer.reset();
+
+        for (int i = 100; i < 400; i++) {
+            taskAdapter.toggleSelection(i);
+        }
+        observer.reset();
+        taskAdapter.markSelectedDone(true);
+
+        assertEquals("One contiguous run should give one range notification", 1, observer.changeCalls);
+        assertEquals(300, observer.changedItems);
+        assertFalse(taskAdapter.isSelectionMode());
+        int done = 0;
+        for (Task task : taskRepository.getAllTasks()) {
+            if (task.isDone()) {
+                done++;
+            }
+        }
+        assertEquals("All selected rows should be persisted as done", 300, done);
+    }
+
+    @Test
+    public void testBatchDeleteAndUndo() {
+        insertTasks(50);
+        int[] selected = {3, 4, 5, 10, 11, 40};
+        for (int position : selected) {
+            taskAdapter.toggleSelection(position);
+        }
+        List<Task> before = new ArrayList<>(taskList);
+        observer.reset();
+
+        taskAdapter.deleteSelected();
+
+        assertEquals(44, taskAdapter.getItemCount());
+        assertEquals("Three runs should give three range removals", 3, observer.removeCalls);
+        assertEquals(44, taskRepository.getAllTasks().size());
+
+        assertTrue(taskAdapter.undo());
+
+        assertEquals(50, taskAdapter.getItemCount());
+        assertEquals(50, taskRepository.getAllTasks().size());
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals("Row " + i + " should be back in place", before.get(i).getId(), taskList.get(i).getId());
+        }
+
+        assertTrue(taskAdapter.redo());
+        assertEquals(44, taskAdapter.getItemCount());
+    }
+
+    @Test
+    public void testBatchUndoRestoresMixedDoneState() {
+        insertTasks(10);
+        taskList.get(2).setDone(true);
+        taskRepository.updateTaskIsDone(taskList.get(2).getId(), true);
+        for (int i = 0; i < 5; i++) {
+            taskAdapter.toggleSelection(i);
+        }
+
+        taskAdapter.markSelectedDone(true);
+        assertTrue(taskAdapter.undo());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Row " + i + " should have its previous state", i == 2, taskList.get(i).isDone());
+        }
+    }
+
+    /**
+     * An adapter with no repository, as TaskAdapter(List) builds, changes its list directly
+     */
+    @Test
+    public void testBatchOperationsWithoutRepository() {
+        List<Task> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(new Task(i + 1, "Task " + i, "", "01/01/2024", "1h", false));
+        }
+        TaskAdapter adapter = new TaskAdapter(rows);
+        CountingObserver counts = new CountingObserver();
+        adapter.registerAdapterDataObserver(counts);
+        int[] selected = {3, 4, 5, 10};
+        for (int position : selected) {
+            adapter.toggleSelection(position);
+        }
+        counts.reset();
+
+        adapter.markSelectedDone(true);
+
+        assertEquals("Two runs should give two range notifications", 2, counts.changeCalls);
+        assertFalse(adapter.isSelectionMode());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals("Row " + i, i >= 3 && i <= 5 || i == 10, rows.get(i).isDone());
+        }
+
+        for (int position : selected) {
+            adapter.toggleSelection(position);
+        }
+        counts.reset();
+
+        adapter.deleteSelected();
+
+        assertEquals(16, adapter.getItemCount());
+        assertEquals("Two runs should give two range removals", 2, counts.removeCalls);
+        assertFalse(adapter.isSelectionMode());
+        for (Task task : rows) {
+            assertFalse("Deleted row " + task.getId() + " is still listed", task.isDone());
+        }
+        assertFalse("Nothing was journaled", adapter.canUndo());
+    }
+
+    @Test
+    public void testGetTasksAcrossChunks() {
+        int[] ids = new int[2500];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) taskRepository.insertTask(new Task("Task " + i, "", "", ""));
+        }
+
+        taskRepository.softDeleteTasks(ids);
+        assertEquals(0, taskRepository.getTasks(ids).size());
+
+        taskRepository.restoreTasks(ids);
+        assertEquals(2500, taskRepository.getTasks(ids).size());
+
+        taskRepository.purgeTasks(ids);
+        assertEquals(0, taskRepository.getAllTasks().size());
+    }
+
+    /**
+     * Per-row clicks against one batch call for 10k rows
+     */
+    @Test
+    public void benchmarkBatchVersusPerRow() {
+        Benchmarks.assumeEnabled();
+        int rows = 10_000;
+        int[] ids = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = (int) taskRepository.insertTask(new Task("Task " + i, "Description " + i, "01/01/2024", "1h"));
+        }
+
+        long perRowUpdate = Benchmarks.timeNanos(() -> {
+            for (int id : ids) {
+                taskRepository.updateTaskIsDone(id, true);
+            }
+        });
+        long batchUpdate = Benchmarks.timeNanos(() -> taskRepository.updateTasksIsDone(ids, false));
+
+        int half = rows / 2;
+        int[] firstHalf = new int[half];
+        int[] secondHalf = new int[rows - half];
+        System.arraycopy(ids, 0, firstHalf, 0, half);
+        System.arraycopy(ids, half, secondHalf, 0, rows - half);
+        long perRowDelete = Benchmarks.timeNanos(() -> {
+            for (int id : firstHalf) {
+                taskRepository.deleteTask(id);
+            }
+        });
+        long batchDelete = Benchmarks.timeNanos(() -> taskRepository.purgeTasks(secondHalf));
+
+        Benchmarks.report("update 10k", "per-row %d ms, batch %d ms", perRowUpdate / 1_000_000, batchUpdate / 1_000_000);
+        Benchmarks.report("delete 5k", "per-row %d ms, batch %d ms", perRowDelete / 1_000_000, batchDelete / 1_000_000);
+        assertEquals(0, taskRepository.getAllTasks().size());
+    }
+
+    private void insertTasks(int count) {
+        for (int i = 0; i < count; i++) {
+            Task task = new Task("Task " + i, "Description " + i, "01/01/2024", "1h");
+            task.setId((int) taskRepository.insertTask(task));
+            taskAdapter.addTask(task);
+        }
+    }
+
+    private static class CountingObserver extends RecyclerView.AdapterDataObserver {
+        int changeCalls, changedItems, removeCalls;
+
+        void reset() {
+            changeCalls = changedItems = removeCalls = 0;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            changeCalls++;
+            changedItems += itemCount;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            removeCalls++;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bind-path tests for TaskAdapter: stable ids, listeners created once, payload binds and the
+ * per-bind cost over a simulated 10k-row scroll, plus the task_item.xml vs TaskRowView benchmark
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskBindTest {
+
+    private static final int ROWS = 10_000;
+    private static final int VISIBLE_HOLDERS = 12;
+
+    private List<Task> taskList;
+    private TaskAdapter taskAdapter;
+    private RecyclerView parent;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        taskList = new ArrayList<>();
+        String[] deadlines = {"01/01/2024", "15/12/2024", "", "28/2/2025"};
+        for (int i = 0; i < ROWS; i++) {
+            taskList.add(new Task(i + 1, "Task " + i, "Description " + i, deadlines[i % deadlines.length], (i % 8) + "h", i % 3 == 0));
+        }
+        taskAdapter = new TaskAdapter(taskList);
+        parent = new RecyclerView(context);
+        parent.setLayoutManager(new LinearLayoutManager(context));
+    }
+
+    @Test
+    public void testStableIdsFollowTaskIds() {
+        assertTrue(taskAdapter.hasStableIds());
+        assertEquals(1, taskAdapter.getItemId(0));
+        assertEquals(ROWS, taskAdapter.getItemId(ROWS - 1));
+
+        taskList.add(new Task("Unsaved", "", "", ""));
+        taskList.add(new Task("Unsaved", "", "", ""));
+        assertTrue("Unsaved tasks must not collide with row ids", taskAdapter.getItemId(ROWS) < 0);
+        assertNotEquals("Each unsaved task needs an id of its own",
+                taskAdapter.getItemId(ROWS), taskAdapter.getItemId(ROWS + 1));
+    }
+
+    @Test
+    public void testListenersAreCreatedOnce() {
+        TaskAdapter.TaskViewHolder holder = taskAdapter.onCreateViewHolder(parent, 0);
+        View.OnClickListener click = shadowOf(holder.row).getOnClickListener();
+
+        for (int i = 0; i < 100; i++) {
+            taskAdapter.onBindViewHolder(holder, i);
+        }
+
+        assertNotNull(click);
+        assertSame("Row listener should survive rebinds", click, shadowOf(holder.row).getOnClickListener());
+        assertSame("Button actions go to the holder itself", holder, holder.row.getActionListener());
+    }
+
+    @Test
+    public void testPayloadBindKeepsLayouts() {
+        TaskAdapter.TaskViewHolder holder = taskAdapter.onCreateViewHolder(parent, 0);
+        measure(holder);
+        taskAdapter.onBindViewHolder(holder, 1);
+        TaskRowLayouts.Rows rows = holder.row.getRows();
+        assertNotNull(rows);
+        assertFalse(holder.row.isDone());
+
+        taskList.get(1).setDone(true);
+        taskAdapter.onBindViewHolder(holder, 1, Collections.singletonList(TaskAdapter.PAYLOAD_STATE));
+
+        assertSame("Payload bind must not rebuild the text layouts", rows, holder.row.getRows());
+        assertTrue(holder.row.isDone());
+    }
+
+    @Test
+    public void testRowsShowTheDeadlineAsEntered() {
+        TaskAdapter.TaskViewHolder first = taskAdapter.onCreateViewHolder(parent, 0);
+        TaskAdapter.TaskViewHolder second = taskAdapter.onCreateViewHolder(parent, 0);
+        measure(first);
+
+        taskAdapter.onBindViewHolder(first, 0);
+        taskAdapter.onBindViewHolder(second, 4);
+
+        assertEquals("01/01/2024", first.row.getRows().deadline.getText().toString());
+        assertEquals("01/01/2024", second.row.getRows().deadline.getText().toString());
+    }
+
+    /**
+     * Binds every row once through a small pool of holders, as a fling through 10k rows would,
+     * then repeats the pass with state-only payloads
+     */
+    @Test
+    public void testScrollBindCost() {
+        TaskAdapter.TaskViewHolder[] pool = new TaskAdapter.TaskViewHolder[VISIBLE_HOLDERS];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = taskAdapter.onCreateViewHolder(parent, 0);
+        }
+        List<Object> statePayload = Collections.singletonList(TaskAdapter.PAYLOAD_STATE);
+        List<Object> noPayload = Collections.emptyList();
+        measure(pool[0]);
+
+        // Warm up class loading and the label cache
+        for (int i = 0; i < 1_000; i++) {
+            taskAdapter.onBindViewHolder(pool[i % pool.length], i, noPayload);
+        }
+
+        long[] fullNanos = new long[1];
+        long fullBytes = AllocationCounter.bytesAllocatedBy(() -> fullNanos[0] = Benchmarks.timeNanos(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                taskAdapter.onBindViewHolder(pool[i % pool.length], i, noPayload);
+            }
+        }));
+        long[] payloadNanos = new long[1];
+        long payloadBytes = AllocationCounter.bytesAllocatedBy(() -> payloadNanos[0] = Benchmarks.timeNanos(() -> {
+            for (int i = ROWS - pool.length; i < ROWS; i++) {
+                for (int round = 0; round < ROWS / pool.length; round++) {
+                    taskAdapter.onBindViewHolder(pool[i % pool.length], i, statePayload);
+                }
+            }
+        }));
+
+        int payloadBinds = pool.length * (ROWS / pool.length);
+        Benchmarks.report("TaskAdapter bind", "full %d B, %d ns per row; payload %d B, %d ns per row",
+                fullBytes / ROWS, fullNanos[0] / ROWS, payloadBytes / payloadBinds, payloadNanos[0] / payloadBinds);
+
+        assertTrue("Payload binds should allocate less than full binds",
+                payloadBytes / payloadBinds < fullBytes / ROWS);
+    }
+
+    /**
+     * Creates, binds and measures rows the old way, by inflating task_item.xml, and the new way
+     * with one TaskRowView each. Robolectric runs on the JVM, so the absolute numbers are not
+     * device timings; the ratio is what this tracks
+     */
+    @Test
+    public void benchmarkInflateVersusRowView() {
+        Benchmarks.assumeEnabled();
+        Context context = parent.getContext();
+        LayoutInflater inflater = LayoutInflater.from(context);
+        int rows = 2_000;
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        TaskRowStyle style = new TaskRowStyle(context);
+        TaskRowLayouts layouts = new TaskRowLayouts(style);
+
+        Runnable inflated = () -> {
+            for (int i = 0; i < rows; i++) {
+                Task task = taskList.get(i);
+                View row = inflater.inflate(R.layout.task_item, parent, false);
+                ((TextView) row.findViewById(R.id.textViewTitle)).setText(task.getTitle());
+                ((TextView) row.findViewById(R.id.textViewDescription)).setText(task.getDescription());
+                ((TextView) row.findViewById(R.id.textViewDeadline)).setText(task.getDeadline());
+                ((TextView) row.findViewById(R.id.textViewDuration)).setText(task.getDuration());
+                row.measure(widthSpec, heightSpec);
+            }
+        };
+        Runnable flat = () -> {
+            for (int i = 0; i < rows; i++) {
+                TaskRowView row = new TaskRowView(context, style, layouts);
+                row.bind(taskList.get(i));
+                row.measure(widthSpec, heightSpec);
+            }
+        };
+
+        // Warm up both paths before timing
+        inflated.run();
+        flat.run();
+        long inflatedNanos = Benchmarks.timeNanos(inflated);
+        long flatNanos = Benchmarks.timeNanos(flat);
+        layouts.shutdown();
+
+        Benchmarks.report("task row create+bind+measure", "task_item.xml %d ns, TaskRowView %d ns per row (%.1fx)",
+                inflatedNanos / rows, flatNanos / rows, (double) inflatedNanos / flatNanos);
+    }
+
+    private static void measure(TaskAdapter.TaskViewHolder holder) {
+        holder.row.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.todolist;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * getTask through the cache at several budgets against the uncached store, with ids drawn from
+ * a Zipf distribution over 1M tasks. Descriptions range from empty to 400 characters, so the
+ * budget holds a varying number of tasks.
+ */
+public class TaskCacheBenchmarkTest {
+
+    private static final int TASKS = 1_000_000;
+    private static final int LOOKUPS = 2_000_000;
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    @Test
+    public void benchmarkZipfLookups() {
+        Benchmarks.assumeEnabled();
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        // Shared description strings keep 1M tasks within the test heap; weights still differ
+        String[] descriptions = new String[41];
+        for (int i = 0; i < descriptions.length; i++) {
+            char[] chars = new char[i * 10];
+            Arrays.fill(chars, 'd');
+            descriptions[i] = new String(chars);
+        }
+        for (int id = 1; id <= TASKS; id++) {
+            store.put(new TaskRecord(id, "Task " + id, descriptions[id % descriptions.length],
+                    "01/01/2025", "2h", false, false));
+        }
+        int[] lookups = zipfIds(new Random(42));
+
+        long storeNanos = lookUp(new TaskRepository(store, 0), lookups);
+        Benchmarks.report("TaskCache disabled", "%.0f ns/get", (double) storeNanos / LOOKUPS);
+        for (long budget : new long[]{256 * 1024, 1024 * 1024, 4 * 1024 * 1024, 16 * 1024 * 1024}) {
+            TaskRepository repository = new TaskRepository(store, budget);
+            // The first pass warms the cache; the second is measured
+            lookUp(repository, lookups);
+            TaskCache.Stats warm = repository.getCacheStats();
+            long nanos = lookUp(repository, lookups);
+            TaskCache.Stats stats = repository.getCacheStats();
+
+            long hits = stats.hits - warm.hits;
+            assertTrue(stats.weight <= budget);
+            Benchmarks.report("TaskCache " + budget / 1024 + " KiB",
+                    "%.0f ns/get (%.2fx), hit rate %.3f, %d evictions, load mean %.0f ns p99 %d ns",
+                    (double) nanos / LOOKUPS, (double) storeNanos / nanos, (double) hits / LOOKUPS,
+                    stats.evictions - warm.evictions, stats.loadLatency.getMean(),
+                    stats.loadLatency.getPercentile(99));
+        }
+    }
+
+    private static long lookUp(TaskRepository repository, int[] lookups) {
+        return Benchmarks.timeNanos(() -> {
+            for (int id : lookups) {
+                if (repository.getTask(id) == null) {
+                    throw new AssertionError("Missing task " + id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Samples ranks by inverting the Zipf CDF, then scatters them over the id space so the hot
+     * tasks do not all fall in the first cache segments.
+     */
+    private static int[] zipfIds(Random random) {
+        double[] cdf = new double[TASKS];
+        double sum = 0;
+        for (int rank = 0; rank < TASKS; rank++) {
+            sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cdf[rank] = sum;
+        }
+        int[] ids = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            if (rank < 0) {
+                rank = -rank - 1;
+            }
+            // 999983 is prime, so this is a permutation of 0..TASKS-1
+            ids[i] = (int) ((long) Math.min(rank, TASKS - 1) * 999_983 % TASKS) + 1;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.todolist;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Unit tests for TaskCache: read-through loading outside the segment lock, weighted LRU eviction,
+ * invalidation and stats.
+ * Ids 1 to 15 share a segment, so they compete for the same share of the budget.
+ */
+public class TaskCacheTest {
+
+    private static final int SEGMENTS = 64;
+
+    private final List<Integer> loads = new ArrayList<>();
+    private final IntFunction<Task> loader = id -> {
+        loads.add(id);
+        return task(id, "");
+    };
+
+    @Test
+    public void testMissLoadsOnceThenHits() {
+        TaskCache cache = new TaskCache();
+        assertEquals("Task 1", cache.get(1, loader).getTitle());
+        assertEquals("Task 1", cache.get(1, loader).getTitle());
+        assertEquals(1, loads.size());
+    }
+
+    @Test
+    public void testReturnsCopies() {
+        TaskCache cache = new TaskCache();
+        cache.get(1, loader).setDone(true);
+        assertFalse(cache.get(1, loader).isDone());
+    }
+
+    @Test
+    public void testAbsentTasksAreNotCached() {
+        TaskCache cache = new TaskCache();
+        IntFunction<Task> absent = id -> {
+            loads.add(id);
+            return null;
+        };
+        assertNull(cache.get(1, absent));
+        assertNull(cache.get(1, absent));
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        TaskCache cache = new TaskCache(entries(3));
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(3, loader);
+        cache.get(1, loader);
+        cache.get(4, loader);
+        loads.clear();
+
+        cache.get(1, loader);
+        cache.get(3, loader);
+        cache.get(4, loader);
+        assertTrue("Recently used tasks must stay", loads.isEmpty());
+        cache.get(2, loader);
+        assertEquals("The least recently used task goes first", 1, loads.size());
+    }
+
+    @Test
+    public void testDescriptionsCountAsWeight() {
+        TaskCache cache = new TaskCache(entries(4));
+        cache.get(1, loader);
+        cache.get(2, loader);
+        // Weighs three plain entries, so only one of the two older tasks can stay
+        cache.get(3, id -> task(id, repeat('x', TaskCache.ENTRY_OVERHEAD)));
+        loads.clear();
+
+        cache.get(2, loader);
+        cache.get(1, loader);
+        assertEquals(1, loads.size());
+        assertEquals(Integer.valueOf(1), loads.get(0));
+    }
+
+    @Test
+    public void testTaskHeavierThanSegmentIsNotCached() {
+        TaskCache cache = new TaskCache(entries(2));
+        cache.get(1, loader);
+        IntFunction<Task> huge = id -> {
+            loads.add(id);
+            return task(id, repeat('x', TaskCache.ENTRY_OVERHEAD * 2));
+        };
+        cache.get(2, huge);
+        cache.get(2, huge);
+        loads.clear();
+        cache.get(1, loader);
+        assertTrue("A task that cannot fit must not flush the segment", loads.isEmpty());
+        assertEquals(0, cache.stats().evictions);
+    }
+
+    @Test
+    public void testWritesInvalidate() {
+        TaskCache cache = new TaskCache();
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(100, loader);
+        boolean[] ran = new boolean[1];
+        cache.write(new int[]{1, 100}, () -> ran[0] = true);
+        assertTrue(ran[0]);
+        loads.clear();
+
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(100, loader);
+        assertEquals(2, loads.size());
+        assertFalse(loads.contains(2));
+
+        cache.writeAll(() -> { });
+        loads.clear();
+        cache.get(2, loader);
+        assertEquals(1, loads.size());
+        assertEquals(TaskCache.ENTRY_OVERHEAD, cache.stats().weight);
+    }
+
+    @Test
+    public void testSlowLoadDoesNotHoldUpItsSegment() throws Exception {
+        TaskCache cache = new TaskCache();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Task> slow = executor.submit(() -> cache.get(1, id -> {
+                loading.countDown();
+                await(release);
+                return task(id, "");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // Id 2 shares the segment of id 1, whose load is still reading the store
+            Future<Task> other = executor.submit(() -> cache.get(2, id -> task(id, "")));
+            assertEquals("Task 2", other.get(5, TimeUnit.SECONDS).getTitle());
+
+            release.countDown();
+            assertEquals("Task 1", slow.get(5, TimeUnit.SECONDS).getTitle());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLoadRacingAWriteIsNotCached() throws Exception {
+        TaskCache cache = new TaskCache();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Reads the row before the write and returns after it
+            Future<Task> stale = executor.submit(() -> cache.get(1, id -> {
+                loading.countDown();
+                await(release);
+                return task(id, "");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            cache.write(new int[]{1}, () -> { });
+            release.countDown();
+            stale.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        cache.get(1, loader);
+        assertEquals("The copy loaded before the write must not be served", Arrays.asList(1), loads);
+    }
+
+    @Test
+    public void testReadersDoNotWaitForAWrite() throws Exception {
+        TaskCache cache = new TaskCache();
+        // Every segment, as a batch over more than 64 ranges would touch
+        int[] ids = new int[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            ids[i] = i << 4;
+        }
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> write = executor.submit(() -> cache.write(ids, () -> {
+                writing.countDown();
+                await(release);
+            }));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            // Runs on this thread: it would never return if the write held the segment
+            assertEquals("Task 1", cache.get(1, loader).getTitle());
+            cache.get(1, loader);
+            assertEquals("Nothing is cached while the store may be half written", Arrays.asList(1, 1), loads);
+
+            release.countDown();
+            write.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        loads.clear();
+        cache.get(1, loader);
+        cache.get(1, loader);
+        assertEquals(Arrays.asList(1), loads);
+    }
+
+    @Test
+    public void testRepositoryInvalidatesOnEveryWrite() {
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore());
+        int id = (int) repository.insertTask(new Task("Task", "", "", ""));
+        int[] ids = {id};
+
+        assertFalse(repository.getTask(id).isDone());
+        repository.updateTaskIsDone(id, true);
+        assertTrue(repository.getTask(id).isDone());
+        repository.updateTasksIsDone(ids, false);
+        assertFalse(repository.getTask(id).isDone());
+        repository.softDeleteTask(id);
+        assertNull(repository.getTask(id));
+        repository.restoreTask(id);
+        assertNotNull(repository.getTask(id));
+        repository.softDeleteTasks(ids);
+        assertNull(repository.getTask(id));
+        repository.restoreTasks(ids);
+        assertNotNull(repository.getTask(id));
+        repository.purgeTasks(ids);
+        assertNull(repository.getTask(id));
+
+        id = (int) repository.insertTask(new Task("Task", "", "", ""));
+        assertNotNull(repository.getTask(id));
+        repository.deleteTask(id);
+        assertNull(repository.getTask(id));
+
+        id = (int) repository.insertTask(new Task("Task", "", "", ""));
+        assertNotNull(repository.getTask(id));
+        repository.softDeleteTask(id);
+        repository.purgeDeletedTasks();
+        repository.restoreTask(id);
+        assertNull(repository.getTask(id));
+    }
+
+    @Test
+    public void testStats() {
+        TaskCache cache = new TaskCache(entries(2));
+        cache.get(1, loader);
+        cache.get(1, loader);
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(3, loader);
+
+        TaskCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits);
+        assertEquals(3, stats.misses);
+        assertEquals(0.4, stats.hitRate(), 1e-9);
+        assertEquals(1, stats.evictions);
+        assertEquals(3, stats.loadLatency.getCount());
+        assertEquals(2 * TaskCache.ENTRY_OVERHEAD, stats.weight);
+        assertEquals(0, new TaskCache().stats().hitRate(), 0);
+    }
+
+    // A budget that fits this many description-less tasks per segment
+    private static long entries(int count) {
+        return (long) SEGMENTS * count * TaskCache.ENTRY_OVERHEAD;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Task task(int id, String description) {
+        return new Task(id, "Task " + id, description, "", "", false);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
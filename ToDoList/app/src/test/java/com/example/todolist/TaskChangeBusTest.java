@@ -0,0 +1,456 @@
+package com.example.todolist;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for diffing, frame coalescing, the per-batch cap, background loading and changes made
+ * before subscribing on the change bus, the adapter following another writer through it, and the
+ * benchmark of UI-thread time during a bulk import
+ */
+public class TaskChangeBusTest {
+
+    private static final int IMPORT_TASKS = 100_000;
+    private static final long FRAME_MILLIS = 16;
+
+    @Test
+    public void testDiffsEachRowAgainstWhatTheListenerShows() {
+        TaskChangeBus bus = new TaskChangeBus();
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        int[] ids = new int[4];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) repository.insertTask(new Task("Task " + i, "", "", ""));
+        }
+        List<TaskChangeBus.Batch> batches = new ArrayList<>();
+        bus.subscribe(batches::add, repository.getAllTasks());
+
+        // Toggled twice, removed and restored: nothing the listener shows changed
+        repository.updateTaskIsDone(ids[0], true);
+        repository.updateTaskIsDone(ids[0], false);
+        repository.softDeleteTask(ids[1]);
+        repository.restoreTask(ids[1]);
+        repository.updateTaskIsDone(ids[2], true);
+        repository.softDeleteTask(ids[3]);
+        // Inserted and removed before the listener saw it
+        int dropped = (int) repository.insertTask(new Task("Dropped", "", "", ""));
+        repository.deleteTask(dropped);
+        int inserted = (int) repository.insertTask(new Task("Inserted", "", "", ""));
+        repository.updateTaskIsDone(inserted, true);
+        bus.flush();
+
+        assertEquals(1, batches.size());
+        TaskChangeBus.Batch batch = batches.get(0);
+        assertIds(batch, TaskChangeBus.TYPE_INSERTED, inserted);
+        assertTrue("Rows arrive in their latest state", batch.getTask(0).isDone());
+        assertIds(batch, TaskChangeBus.TYPE_REMOVED, ids[3]);
+        assertIds(batch, TaskChangeBus.TYPE_DONE, ids[2]);
+        assertIds(batch, TaskChangeBus.TYPE_NOT_DONE);
+        assertFalse(batch.contains(TaskChangeBus.TYPE_REMOVED, ids[1]));
+
+        bus.flush();
+        assertEquals("Nothing left to deliver", 1, batches.size());
+    }
+
+    @Test
+    public void testDeliversOneBatchPerFrameToEverySubscriber() {
+        ManualFrames frames = new ManualFrames();
+        ManualLoader loader = new ManualLoader();
+        TaskChangeBus bus = new TaskChangeBus(frames, loader);
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        List<TaskChangeBus.Batch> first = new ArrayList<>();
+        List<TaskChangeBus.Batch> second = new ArrayList<>();
+        repository.insertTask(new Task("Before", "", "", ""));
+        assertEquals("Nobody to prepare for yet", 0, loader.queued());
+        bus.subscribe(first::add, repository.getAllTasks());
+        bus.subscribe(second::add, repository.getAllTasks());
+
+        int[] ids = new int[3];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) repository.insertTask(new Task("Task " + i, "", "", ""));
+        }
+        repository.updateTaskIsDone(ids[0], true);
+        assertEquals("One preparation for everything pending", 1, loader.queued());
+        assertEquals("The frame is scheduled once the batch is ready", 0, frames.scheduled);
+        loader.runAll();
+        assertEquals(1, frames.scheduled);
+        frames.runFrame();
+
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertIds(first.get(0), TaskChangeBus.TYPE_INSERTED, ids);
+        assertIds(second.get(0), TaskChangeBus.TYPE_INSERTED, ids);
+        assertEquals(0, first.get(0).size(TaskChangeBus.TYPE_DONE));
+        assertEquals("Task 0", first.get(0).getTask(0).getTitle());
+        assertTrue("Rows arrive in their latest state", first.get(0).getTask(0).isDone());
+
+        repository.softDeleteTask(ids[1]);
+        loader.runAll();
+        frames.runFrame();
+        assertEquals(2, second.size());
+        assertIds(second.get(1), TaskChangeBus.TYPE_REMOVED, ids[1]);
+
+        frames.runFrame();
+        bus.flush();
+        assertEquals(2, first.size());
+    }
+
+    @Test
+    public void testBatchTakesAtMostMaxChangesAndLeavesTheRestPending() {
+        ManualFrames frames = new ManualFrames();
+        ManualLoader loader = new ManualLoader();
+        TaskChangeBus bus = new TaskChangeBus(frames, loader);
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        List<TaskChangeBus.Batch> batches = new ArrayList<>();
+        bus.subscribe(batches::add, Collections.emptyList());
+        int total = TaskChangeBus.MAX_BATCH_CHANGES + 10;
+        int[] ids = new int[total];
+        for (int i = 0; i < total; i++) {
+            ids[i] = (int) repository.insertTask(new Task("Task " + i, "", "", ""));
+        }
+
+        loader.runAll();
+        assertTrue(bus.isPending(ids[total - 1]));
+        frames.runFrame();
+        assertEquals(TaskChangeBus.MAX_BATCH_CHANGES, batches.get(0).size(TaskChangeBus.TYPE_INSERTED));
+        assertEquals("The oldest changes go first", ids[0], batches.get(0).getId(TaskChangeBus.TYPE_INSERTED, 0));
+
+        // The frame started preparing the rest
+        loader.runAll();
+        frames.runFrame();
+        assertEquals(2, batches.size());
+        assertEquals(10, batches.get(1).size(TaskChangeBus.TYPE_INSERTED));
+        assertEquals("Task " + (total - 1), batches.get(1).getTask(9).getTitle());
+        assertFalse(bus.isPending(ids[total - 1]));
+    }
+
+    @Test
+    public void testLoadsInsertedRowsOffTheListenersThread() throws Exception {
+        ScheduledExecutorService ui = Executors.newSingleThreadScheduledExecutor();
+        try {
+            Thread uiThread = ui.submit(Thread::currentThread).get();
+            List<Thread> queried = new ArrayList<>();
+            InMemoryTaskStore store = new InMemoryTaskStore() {
+                @Override
+                public List<Task> query(int[] ids) {
+                    synchronized (queried) {
+                        queried.add(Thread.currentThread());
+                    }
+                    return super.query(ids);
+                }
+            };
+            TaskChangeBus bus = new TaskChangeBus(ui::execute);
+            TaskRepository repository = new TaskRepository(store, bus);
+            TaskAdapter adapter = ui.submit(() -> new TaskAdapter(new ArrayList<>(), repository)).get();
+
+            for (int i = 0; i < 1_000; i++) {
+                repository.insertTask(new Task("Task " + i, "", "", ""));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (ui.submit(adapter::getItemCount).get() < 1_000 && System.nanoTime() < deadline) {
+                Thread.sleep(FRAME_MILLIS);
+            }
+
+            assertEquals(1_000, (int) ui.submit(adapter::getItemCount).get());
+            synchronized (queried) {
+                assertFalse(queried.isEmpty());
+                assertFalse("Rows must be loaded before the batch reaches the UI thread", queried.contains(uiThread));
+            }
+        } finally {
+            ui.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFlushDeliversOnlyTheGivenRows() {
+        ManualFrames frames = new ManualFrames();
+        ManualLoader loader = new ManualLoader();
+        TaskChangeBus bus = new TaskChangeBus(frames, loader);
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        int own = (int) repository.insertTask(new Task("Own", "", "", ""));
+        List<Task> tasks = repository.getAllTasks();
+        TaskAdapter adapter = new TaskAdapter(tasks, repository);
+        int imported = (int) repository.insertTask(new Task("Imported", "", "", ""));
+
+        adapter.onDoneClicked(0);
+
+        assertTrue("The tap shows at once", tasks.get(0).isDone());
+        assertEquals("The import waits for its frame", 1, adapter.getItemCount());
+        assertTrue(bus.isPending(imported));
+        assertFalse(bus.isPending(own));
+        loader.runAll();
+        frames.runFrame();
+        assertEquals(2, adapter.getItemCount());
+        assertEquals(imported, tasks.get(1).getId());
+    }
+
+    @Test
+    public void testRowGoneWhenReadIsInsertedOnceRestored() {
+        ManualFrames frames = new ManualFrames();
+        ManualLoader loader = new ManualLoader();
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        TaskChangeBus bus = new TaskChangeBus(frames, loader);
+        TaskRepository repository = new TaskRepository(store, bus);
+        List<Task> tasks = new ArrayList<>();
+        TaskAdapter adapter = new TaskAdapter(tasks, repository);
+        int id = (int) repository.insertTask(new Task("Task", "", "", ""));
+
+        // Soft-deleted after its insert was published, and read before the delete is published
+        store.updateDeleted(new int[]{id}, true);
+        loader.runAll();
+        frames.runFrame();
+        assertEquals(0, adapter.getItemCount());
+
+        repository.softDeleteTask(id);
+        repository.restoreTask(id);
+        loader.runAll();
+        frames.runFrame();
+        assertEquals("Removed and restored, the row was never shown, so it must be inserted",
+                1, adapter.getItemCount());
+        assertEquals(id, tasks.get(0).getId());
+    }
+
+    @Test
+    public void testChangesBeforeSubscribingReachTheFirstListener() {
+        ManualFrames frames = new ManualFrames();
+        ManualLoader loader = new ManualLoader();
+        TaskChangeBus bus = new TaskChangeBus(frames, loader);
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        int kept = (int) repository.insertTask(new Task("Kept", "", "", ""));
+        int removed = (int) repository.insertTask(new Task("Removed", "", "", ""));
+        // The list is read, then other writers change the rows before the adapter subscribes
+        List<Task> tasks = repository.getAllTasks();
+        int inserted = (int) repository.insertTask(new Task("Inserted", "", "", ""));
+        repository.updateTaskIsDone(kept, true);
+        repository.softDeleteTask(removed);
+        TaskAdapter adapter = new TaskAdapter(tasks, repository);
+
+        loader.runAll();
+        frames.runFrame();
+
+        assertEquals(2, adapter.getItemCount());
+        assertEquals(kept, tasks.get(0).getId());
+        assertTrue(tasks.get(0).isDone());
+        assertEquals(inserted, tasks.get(1).getId());
+
+        // A list read after the writes already shows them, so nothing is added twice
+        adapter.close();
+        repository.updateTaskIsDone(kept, false);
+        List<Task> fresh = repository.getAllTasks();
+        TaskAdapter late = new TaskAdapter(fresh, repository);
+        loader.runAll();
+        frames.runFrame();
+        assertEquals(2, late.getItemCount());
+        assertFalse(fresh.get(0).isDone());
+    }
+
+    @Test
+    public void testRepositoryPublishesEveryWrite() {
+        TaskChangeBus bus = new TaskChangeBus();
+        List<TaskChangeBus.Batch> batches = new ArrayList<>();
+        bus.subscribe(batches::add, Collections.emptyList());
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        int[] ids = new int[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) repository.insertTask(new Task("Task " + i, "", "", ""));
+        }
+        bus.flush();
+        assertIds(batches.get(0), TaskChangeBus.TYPE_INSERTED, ids);
+
+        repository.updateTaskIsDone(ids[0], true);
+        repository.updateTasksIsDone(new int[] {ids[1], ids[2]}, true);
+        repository.updateTaskIsDone(ids[2], false);
+        repository.softDeleteTask(ids[3]);
+        repository.deleteTask(ids[4]);
+        bus.flush();
+        TaskChangeBus.Batch batch = batches.get(1);
+        assertIds(batch, TaskChangeBus.TYPE_DONE, ids[0], ids[1]);
+        // Done and back again before the listener heard of it
+        assertIds(batch, TaskChangeBus.TYPE_NOT_DONE);
+        assertIds(batch, TaskChangeBus.TYPE_REMOVED, ids[3], ids[4]);
+
+        repository.restoreTask(ids[3]);
+        repository.softDeleteTasks(new int[] {ids[0], ids[1]});
+        repository.restoreTasks(new int[] {ids[0]});
+        repository.purgeTasks(new int[] {ids[1]});
+        repository.purgeDeletedTasks();
+        bus.flush();
+        batch = batches.get(2);
+        assertIds(batch, TaskChangeBus.TYPE_INSERTED, ids[3]);
+        assertIds(batch, TaskChangeBus.TYPE_REMOVED, ids[1]);
+        assertEquals(0, batch.size(TaskChangeBus.TYPE_DONE));
+    }
+
+    @Test
+    public void testAdapterFollowsAnotherWriter() {
+        TaskChangeBus bus = new TaskChangeBus();
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        int kept = (int) repository.insertTask(new Task("Kept", "", "", ""));
+        int removed = (int) repository.insertTask(new Task("Removed", "", "", ""));
+        List<Task> tasks = repository.getAllTasks();
+        TaskAdapter adapter = new TaskAdapter(tasks, repository);
+        NotificationCounter counter = new NotificationCounter();
+        adapter.registerAdapterDataObserver(counter);
+
+        int[] inserted = new int[3];
+        for (int i = 0; i < inserted.length; i++) {
+            inserted[i] = (int) repository.insertTask(new Task("New " + i, "", "", ""));
+        }
+        repository.updateTaskIsDone(kept, true);
+        repository.softDeleteTask(removed);
+        assertEquals(2, adapter.getItemCount());
+        bus.flush();
+
+        assertEquals(4, adapter.getItemCount());
+        assertEquals(1, counter.rangeInserts);
+        assertEquals(3, counter.insertedRows);
+        assertEquals(1, counter.rangeRemoves);
+        assertEquals(1, counter.rangeChanges);
+        assertEquals(kept, tasks.get(0).getId());
+        assertTrue(tasks.get(0).isDone());
+        for (int i = 0; i < inserted.length; i++) {
+            assertEquals(inserted[i], tasks.get(i + 1).getId());
+        }
+
+        adapter.close();
+        repository.insertTask(new Task("Unseen", "", "", ""));
+        bus.flush();
+        assertEquals(4, adapter.getItemCount());
+    }
+
+    /**
+     * A background thread imports rows while a single-thread executor stands in for the UI
+     * thread, running deliveries on a 16 ms frame clock. No delivery may take more than the
+     * frame, plus whatever time collections stopped it for
+     */
+    @Test
+    public void benchmarkBulkImport() throws Exception {
+        Benchmarks.assumeEnabled();
+        ScheduledExecutorService ui = Executors.newSingleThreadScheduledExecutor();
+        long origin = System.nanoTime();
+        TaskChangeBus bus = new TaskChangeBus(delivery -> {
+            long now = (System.nanoTime() - origin) / 1_000_000;
+            long frame = (now / FRAME_MILLIS + 1) * FRAME_MILLIS;
+            ui.schedule(delivery, frame - now, TimeUnit.MILLISECONDS);
+        });
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore(), bus);
+        NotificationCounter counter = new NotificationCounter();
+        TaskAdapter adapter = ui.submit(() -> {
+            TaskAdapter created = new TaskAdapter(new ArrayList<>(), repository);
+            created.registerAdapterDataObserver(counter);
+            return created;
+        }).get();
+
+        TaskMetrics.reset();
+        TaskMetrics.setEnabled(true);
+        long gcMillis = MemoryBudgets.gcMillis();
+        try {
+            long importNanos = Benchmarks.timeNanos(() -> {
+                for (int i = 0; i < IMPORT_TASKS; i++) {
+                    repository.insertTask(new Task("Imported " + i, "", "1/1/2025", "1h"));
+                }
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (ui.submit(adapter::getItemCount).get() < IMPORT_TASKS && System.nanoTime() < deadline) {
+                Thread.sleep(FRAME_MILLIS);
+            }
+
+            LatencyHistogram deliveries = TaskMetrics.Timer.CHANGES_DELIVER.getHistogram();
+            LatencyHistogram preparations = TaskMetrics.Timer.CHANGES_PREPARE.getHistogram();
+            assertEquals(IMPORT_TASKS, (int) ui.submit(adapter::getItemCount).get());
+            assertTrue(counter.rangeInserts < IMPORT_TASKS / 100);
+            // A collection stops the UI thread too, whatever the delivery it lands in, and the
+            // collector's own clock leaves out the wait for every thread to stop
+            long gcNanos = TimeUnit.MILLISECONDS.toNanos(MemoryBudgets.gcMillis() - gcMillis);
+            Benchmarks.report("changes.bulkImport",
+                    "%d rows in %.0f ms, %d batches, %d range inserts, UI thread %.1f ms total, %.2f ms max,"
+                            + " loader %.1f ms total, GC %.1f ms",
+                    IMPORT_TASKS, importNanos / 1e6, deliveries.getCount(), counter.rangeInserts,
+                    deliveries.getCount() * deliveries.getMean() / 1e6, deliveries.getMax() / 1e6,
+                    preparations.getCount() * preparations.getMean() / 1e6, gcNanos / 1e6);
+            assertTrue("Slowest delivery " + deliveries.getMax() / 1e6 + " ms",
+                    deliveries.getMax() < TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS) + gcNanos);
+        } finally {
+            TaskMetrics.setEnabled(false);
+            TaskMetrics.reset();
+            ui.shutdownNow();
+        }
+    }
+
+    private static void assertIds(TaskChangeBus.Batch batch, int type, int... expected) {
+        assertEquals(expected.length, batch.size(type));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], batch.getId(type, i));
+        }
+    }
+
+    private static final class ManualFrames implements TaskChangeBus.FrameScheduler {
+        int scheduled;
+        private Runnable delivery;
+
+        @Override
+        public void schedule(Runnable delivery) {
+            this.delivery = delivery;
+            scheduled++;
+        }
+
+        void runFrame() {
+            Runnable next = delivery;
+            delivery = null;
+            if (next != null) {
+                next.run();
+            }
+        }
+    }
+
+    private static final class ManualLoader implements Executor {
+        private final List<Runnable> queue = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        int queued() {
+            return queue.size();
+        }
+
+        void runAll() {
+            while (!queue.isEmpty()) {
+                queue.remove(0).run();
+            }
+        }
+    }
+
+    private static final class NotificationCounter extends RecyclerView.AdapterDataObserver {
+        int rangeInserts;
+        int insertedRows;
+        int rangeRemoves;
+        int rangeChanges;
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            rangeInserts++;
+            insertedRows += itemCount;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            rangeRemoves++;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            rangeChanges++;
+        }
+    }
+}
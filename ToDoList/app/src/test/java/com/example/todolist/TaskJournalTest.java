@@ -0,0 +1,268 @@
+package com.example.todolist;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the undo/redo journal used by TaskAdapter
+ */
+public class TaskJournalTest {
+
+    private static final long WINDOW = 60_000;
+    private static final double BYTES_PER_ENTRY_BUDGET = 24;
+
+    private static final MemoryBudgets budgets = new MemoryBudgets("TaskJournalTest");
+
+    private List<Integer> purged;
+    private TaskJournal journal;
+
+    @AfterClass
+    public static void writeReport() throws IOException {
+        budgets.writeReport();
+    }
+
+    @Before
+    public void setUp() {
+        purged = new ArrayList<>();
+        journal = new TaskJournal(4, WINDOW, purged::add);
+    }
+
+    @Test
+    public void testEncodingRoundTrip() {
+        long entry = TaskJournal.encode(TaskJournal.OP_TOGGLE, Integer.MAX_VALUE, 123456, true);
+
+        assertEquals(TaskJournal.OP_TOGGLE, TaskJournal.op(entry));
+        assertEquals(Integer.MAX_VALUE, TaskJournal.taskId(entry));
+        assertEquals(123456, TaskJournal.position(entry));
+        assertTrue(TaskJournal.flag(entry));
+    }
+
+    @Test
+    public void testUndoRedoOrder() {
+        journal.record(TaskJournal.OP_INSERT, 1, 0, false, 0);
+        journal.record(TaskJournal.OP_TOGGLE, 1, 0, true, 1);
+
+        assertEquals(TaskJournal.OP_TOGGLE, TaskJournal.op(journal.undo(2)));
+        assertEquals(TaskJournal.OP_INSERT, TaskJournal.op(journal.undo(3)));
+        assertEquals(TaskJournal.NONE, journal.undo(4));
+
+        assertEquals(TaskJournal.OP_INSERT, TaskJournal.op(journal.redo(5)));
+        assertEquals(TaskJournal.OP_TOGGLE, TaskJournal.op(journal.redo(6)));
+        assertEquals(TaskJournal.NONE, journal.redo(7));
+    }
+
+    @Test
+    public void testExpiredDeleteIsPurged() {
+        journal.record(TaskJournal.OP_DELETE, 7, 3, false, 0);
+
+        journal.expire(WINDOW - 1);
+        assertTrue("Delete should still be undoable inside the window", purged.isEmpty());
+
+        journal.expire(WINDOW);
+        assertEquals(1, purged.size());
+        assertEquals(7, (int) purged.get(0));
+        assertFalse(journal.canUndo());
+    }
+
+    @Test
+    public void testExpiryIsScheduledWithoutFurtherActions() {
+        List<Runnable> expiries = new ArrayList<>();
+        List<Long> delays = new ArrayList<>();
+        journal = new TaskJournal(4, WINDOW, new TaskJournal.PurgeListener() {
+            @Override
+            public void onPurge(int taskId) {
+                purged.add(taskId);
+            }
+
+            @Override
+            public void scheduleExpiry(Runnable expire, long delayMillis) {
+                expiries.add(expire);
+                delays.add(delayMillis);
+            }
+        });
+        journal.record(TaskJournal.OP_DELETE, 7, 3, false, 0);
+        journal.record(TaskJournal.OP_DELETE, 8, 4, false, 1000);
+        assertEquals("One expiry at a time, for the oldest entry", 1, expiries.size());
+        assertEquals(WINDOW, (long) delays.get(0));
+
+        // The user does nothing more; the listener's thread runs the expiry when it is due
+        expiries.get(0).run();
+        assertEquals(1, purged.size());
+        assertEquals(7, (int) purged.get(0));
+        assertEquals(2, expiries.size());
+        assertEquals(1000, (long) delays.get(1));
+
+        expiries.get(1).run();
+        assertEquals(2, purged.size());
+        assertEquals(0, journal.size());
+        assertEquals("Nothing left to expire", 2, expiries.size());
+    }
+
+    @Test
+    public void testPurgerPurgesExpiredDeletes() throws InterruptedException {
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore());
+        int id = (int) repository.insertTask(new Task("Task", "", "", ""));
+        TaskPurger purger = new TaskPurger(repository);
+        journal = new TaskJournal(4, 50, purger);
+        repository.softDeleteTask(id);
+        journal.record(TaskJournal.OP_DELETE, id, 0, false, System.currentTimeMillis());
+
+        // The purger's thread expires the entry after the window and flushes its batch later
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (journal.size() > 0) {
+            assertTrue("The expiry never ran", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        CountDownLatch written = new CountDownLatch(1);
+        purger.shutdown(written::countDown);
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        repository.restoreTask(id);
+        assertNull("The expired row must be purged, not restorable", repository.getTask(id));
+    }
+
+    @Test
+    public void testUndoneDeleteIsNotPurged() {
+        journal.record(TaskJournal.OP_DELETE, 7, 3, false, 0);
+        journal.undo(1);
+
+        journal.expire(WINDOW * 2);
+
+        assertTrue("Restored row must not be purged", purged.isEmpty());
+    }
+
+    @Test
+    public void testNewRecordDropsUndoneInsert() {
+        journal.record(TaskJournal.OP_INSERT, 5, 0, false, 0);
+        journal.undo(1);
+
+        journal.record(TaskJournal.OP_TOGGLE, 6, 0, true, 2);
+
+        assertEquals(1, purged.size());
+        assertEquals(5, (int) purged.get(0));
+        assertFalse(journal.canRedo());
+    }
+
+    @Test
+    public void testRingEvictsOldest() {
+        for (int id = 1; id <= 6; id++) {
+            journal.record(TaskJournal.OP_DELETE, id, 0, false, id);
+        }
+
+        assertEquals(4, journal.size());
+        assertEquals(2, purged.size());
+        assertEquals(1, (int) purged.get(0));
+        assertEquals(2, (int) purged.get(1));
+    }
+
+    @Test
+    public void testClearPurgesPendingDeletes() {
+        journal.record(TaskJournal.OP_DELETE, 1, 0, false, 0);
+        journal.record(TaskJournal.OP_TOGGLE, 2, 0, true, 1);
+
+        journal.clear();
+
+        assertEquals(1, purged.size());
+        assertEquals(0, journal.size());
+    }
+
+    /**
+     * Heap cost of a journal slot, measured rather than taken from BYTES_PER_ENTRY
+     */
+    @Test
+    public void testMemoryPerEntry() {
+        int capacity = 1 << 20;
+
+        long before = MemoryBudgets.usedHeapAfterGc();
+        TaskJournal big = new TaskJournal(capacity, WINDOW, null);
+        long after = MemoryBudgets.usedHeapAfterGc();
+
+        for (int i = 0; i < capacity * 2; i++) {
+            big.record(TaskJournal.OP_TOGGLE, i, i, true, 0);
+        }
+        assertEquals(capacity, big.size());
+        Reference.reachabilityFence(big);
+        budgets.check("journal.entry", "bytes/entry", (double) (after - before) / capacity, BYTES_PER_ENTRY_BUDGET);
+    }
+
+    /**
+     * Undo cost depends on the ring, not on how many operations or rows came before it
+     */
+    @Test
+    public void benchmarkUndoIndependentOfHistory() {
+        Benchmarks.assumeEnabled();
+        long small = averageUndoNanos(1_000);
+        long large = averageUndoNanos(1_000_000);
+        Benchmarks.report("TaskJournal undo", "%d ns after 1k ops, %d ns after 1M ops", small, large);
+
+        assertTrue("Undo latency grew with history size: " + small + " vs " + large, large < small * 10 + 1_000);
+    }
+
+    /**
+     * The same through TaskAdapter.undo(), which also writes the row back and updates the list:
+     * the journal keeps each row's position, so nothing scans the list however long it is
+     */
+    @Test
+    public void benchmarkAdapterUndoIndependentOfRows() {
+        Benchmarks.assumeEnabled();
+        long small = averageAdapterUndoNanos(1_000);
+        long large = averageAdapterUndoNanos(100_000);
+        Benchmarks.report("TaskAdapter undo", "%d ns with 1k rows, %d ns with 100k rows", small, large);
+
+        assertTrue("Undo latency grew with the list: " + small + " vs " + large, large < small * 10 + 10_000);
+    }
+
+    private long averageUndoNanos(int operations) {
+        TaskJournal ring = new TaskJournal(256, Long.MAX_VALUE, null);
+        for (int i = 0; i < operations; i++) {
+            ring.record(TaskJournal.OP_TOGGLE, i, i, (i & 1) == 0, i);
+        }
+        // Warm up, then time undo/redo pairs
+        for (int i = 0; i < 10_000; i++) {
+            ring.undo(operations);
+            ring.redo(operations);
+        }
+        int rounds = 100_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            ring.undo(operations);
+            ring.redo(operations);
+        }
+        return (System.nanoTime() - start) / (rounds * 2L);
+    }
+
+    // Undoes and redoes a toggle of the middle row
+    private long averageAdapterUndoNanos(int rows) {
+        TaskRepository repository = new TaskRepository(new InMemoryTaskStore());
+        List<Task> taskList = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Task task = new Task("Task " + i, "Description " + i, "2025-01-01", "1h");
+            task.setId((int) repository.insertTask(task));
+            taskList.add(task);
+        }
+        TaskAdapter adapter = new TaskAdapter(taskList, repository);
+        adapter.onDoneClicked(rows / 2);
+        for (int i = 0; i < 10_000; i++) {
+            adapter.undo();
+            adapter.redo();
+        }
+        int rounds = 50_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            adapter.undo();
+            adapter.redo();
+        }
+        long nanos = (System.nanoTime() - start) / (rounds * 2L);
+        assertTrue(taskList.get(rows / 2).isDone());
+        adapter.close();
+        return nanos;
+    }
+}
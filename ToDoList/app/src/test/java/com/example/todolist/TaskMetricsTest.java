@@ -0,0 +1,137 @@
+package com.example.todolist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Random;
+
+/**
+ * Unit tests for TaskMetrics and LatencyHistogram, including the allocation-free recording path
+ */
+public class TaskMetricsTest {
+
+    private static final int RECORDS = 1_000_000;
+
+    @Before
+    public void setUp() {
+        TaskMetrics.reset();
+        TaskMetrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        TaskMetrics.setEnabled(false);
+        TaskMetrics.reset();
+    }
+
+    @Test
+    public void testBucketsBoundValuesWithinThreePercent() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() & LatencyHistogram.MAX_VALUE;
+            value >>>= random.nextInt(40);
+            int index = LatencyHistogram.bucketIndex(value);
+            long lower = LatencyHistogram.bucketLowerBound(index);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+
+            assertTrue(index < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(value + " outside [" + lower + ", " + upper + "]", lower <= value && value <= upper);
+            assertTrue("Bucket too wide for " + value, upper - lower <= Math.max(0, lower / 32));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean(), 1);
+        assertEquals(5_000_000, histogram.getPercentile(50), 5_000_000 * 0.04);
+        assertEquals(9_900_000, histogram.getPercentile(99), 9_900_000 * 0.04);
+        assertEquals(10_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void testDisabledRecordsNothing() {
+        TaskMetrics.setEnabled(false);
+        long start = TaskMetrics.start();
+        TaskMetrics.stop(TaskMetrics.Timer.BIND, start);
+        TaskMetrics.increment(TaskMetrics.Counter.TASKS_LOADED);
+
+        assertEquals(0, start);
+        assertEquals(0, TaskMetrics.Timer.BIND.getHistogram().getCount());
+        assertEquals(0, TaskMetrics.Counter.TASKS_LOADED.get());
+    }
+
+    @Test
+    public void testRecordingIsAllocationFree() {
+        // Warm up so the measured loop runs compiled code
+        recordMany(RECORDS);
+        TaskMetrics.reset();
+
+        long bytes = AllocationCounter.bytesAllocatedBy(() -> recordMany(RECORDS));
+        Benchmarks.report("TaskMetrics recording", "%d bytes allocated over %d recordings", bytes, RECORDS);
+
+        assertEquals(RECORDS, TaskMetrics.Timer.BIND.getHistogram().getCount());
+        assertEquals(RECORDS, TaskMetrics.Counter.LAYOUTS_PREFETCHED.get());
+        // Allows for the measurement itself, but nothing per recording
+        assertTrue("Recording allocated " + bytes + " bytes", bytes < 1_024);
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNothing() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> recordMany(100_000));
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800_000, TaskMetrics.Timer.BIND.getHistogram().getCount());
+        assertEquals(800_000, TaskMetrics.Counter.LAYOUTS_PREFETCHED.get());
+    }
+
+    @Test
+    public void testDumpListsRecordedMetrics() {
+        TaskMetrics.Timer.GET_ALL_TASKS.getHistogram().record(2_500_000);
+        TaskMetrics.add(TaskMetrics.Counter.TASKS_LOADED, 120);
+
+        StringWriter text = new StringWriter();
+        TaskMetrics.dump(new PrintWriter(text));
+        String dump = text.toString();
+
+        assertTrue(dump, dump.contains("repository.getAllTasks count=1"));
+        assertTrue(dump, dump.contains("max=2500.0us"));
+        assertTrue(dump, dump.contains("repository.tasksLoaded 120"));
+        assertFalse("Unused metrics are left out", dump.contains("adapter.bind"));
+    }
+
+    private static void recordMany(int count) {
+        for (int i = 0; i < count; i++) {
+            long start = TaskMetrics.start();
+            TaskMetrics.stop(TaskMetrics.Timer.BIND, start);
+            TaskMetrics.increment(TaskMetrics.Counter.LAYOUTS_PREFETCHED);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migrations from the version 1 layout to the current one, on Robolectric's SQLite: every row
+ * survives, progress is reported per chunk and an interrupted migration resumes
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskMigratorTest {
+
+    static final String VERSION_1_TABLE = "CREATE TABLE tasks (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "title TEXT NOT NULL, description TEXT, deadline TEXT, duration TEXT, is_done INTEGER DEFAULT 0);";
+
+    // Every LONG_EVERY-th row gets a description long enough to be deflated, every NULL_EVERY-th none
+    private static final int LONG_EVERY = 1_000;
+    private static final int NULL_EVERY = 7;
+
+    private Context context;
+    private TaskDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void testMigratesHalfAMillionRowsFromVersion1() {
+        int rows = 500_000;
+        createVersion1(rows);
+        dbHelper = new TaskDbHelper(context);
+        List<long[]> progress = new ArrayList<>();
+
+        long nanos = Benchmarks.timeNanos(() -> new TaskMigrator(dbHelper)
+                .run((rowsDone, rowsTotal) -> progress.add(new long[]{rowsDone, rowsTotal})));
+        Benchmarks.report("migration.v1ToV" + TaskDbHelper.DATABASE_VERSION, "%d rows in %.0f ms, %.1f us/row",
+                rows, nanos / 1e6, nanos / 1e3 / rows);
+
+        assertProgress(progress, rows);
+        assertMigrated(rows);
+    }
+
+    @Test
+    public void testInterruptedMigrationResumes() {
+        int rows = 10_000;
+        createVersion1(rows);
+        dbHelper = new TaskDbHelper(context);
+        try {
+            new TaskMigrator(dbHelper, 1_000).run((rowsDone, rowsTotal) -> {
+                if (rowsDone == 3_000) {
+                    throw new IllegalStateException("Killed");
+                }
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            // The third chunk was committed before the listener heard of it
+        }
+        dbHelper.close();
+
+        dbHelper = new TaskDbHelper(context);
+        List<long[]> progress = new ArrayList<>();
+        new TaskMigrator(dbHelper, 1_000).run((rowsDone, rowsTotal) -> progress.add(new long[]{rowsDone, rowsTotal}));
+        assertProgress(progress, rows - 3_000);
+        assertMigrated(rows);
+    }
+
+    @Test
+    public void testNewDatabaseHasNothingToMigrate() {
+        dbHelper = new TaskDbHelper(context);
+        List<long[]> progress = new ArrayList<>();
+        new TaskMigrator(dbHelper).run((rowsDone, rowsTotal) -> progress.add(new long[]{rowsDone, rowsTotal}));
+        assertEquals(1, progress.size());
+        assertEquals(0, progress.get(0)[1]);
+        assertEquals(0, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(), TaskDbHelper.TABLE_MIGRATIONS));
+    }
+
+    @Test
+    public void testUpgradeFromVersion4() {
+        dbHelper = new TaskDbHelper(context);
+        SqliteTaskStore store = new SqliteTaskStore(dbHelper);
+        int id = (int) store.insert(new Task("Task", "Description", "01/01/2025", "1h"));
+        for (int i = 0; i < 9; i++) {
+            store.insert(new Task("Task " + i, "Description " + i, "", ""));
+        }
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        // Version 4 kept a preview of every description
+        db.execSQL("UPDATE tasks SET description_preview = description");
+
+        // The migrations table already exists in a version 4 database; creating it again would
+        // fail the upgrade
+        db.beginTransaction();
+        try {
+            dbHelper.onUpgrade(db, 4, TaskDbHelper.DATABASE_VERSION);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        assertEquals("The previews are cleared a chunk at a time, not in the upgrade",
+                10, DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_NAME, "description_preview IS NOT NULL"));
+        new TaskMigrator(dbHelper, 3).run((rowsDone, rowsTotal) -> { });
+
+        assertEquals(0, DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_MIGRATIONS));
+        assertEquals("Inline descriptions drop their preview",
+                0, DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_NAME, "description_preview IS NOT NULL"));
+        assertEquals("Description", store.get(id).getDescription());
+        assertEquals("Description", store.queryAll().get(0).getDescription());
+    }
+
+    private void createVersion1(int rows) {
+        File file = context.getDatabasePath(TaskDbHelper.DATABASE_NAME);
+        file.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        db.execSQL(VERSION_1_TABLE);
+        String longText = TaskStoreContractTest.longText(3_000);
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO tasks (title, description, deadline, duration, is_done) VALUES (?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 1; i <= rows; i++) {
+                insert.bindString(1, "Task " + i);
+                if (i % NULL_EVERY == 0) {
+                    insert.bindNull(2);
+                } else {
+                    insert.bindString(2, i % LONG_EVERY == 0 ? longText + i : "Description " + i);
+                }
+                insert.bindString(3, "01/01/2025");
+                insert.bindString(4, (i % 8) + "h");
+                insert.bindLong(5, i % 3 == 0 ? 1 : 0);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        insert.close();
+        db.setVersion(1);
+        db.close();
+    }
+
+    private static void assertProgress(List<long[]> progress, long total) {
+        assertEquals(0, progress.get(0)[0]);
+        long last = -1;
+        for (long[] step : progress) {
+            assertEquals(total, step[1]);
+            assertTrue("Progress must not go back", step[0] > last || step[0] == total);
+            last = step[0];
+        }
+        assertEquals(total, last);
+    }
+
+    private void assertMigrated(int rows) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        assertEquals(0, DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_MIGRATIONS));
+        Cursor cursor = db.rawQuery("SELECT count(*), sum(id), sum(is_done), sum(is_deleted),"
+                + " sum(description IS NULL AND description_length > 0), sum(description_preview IS NOT NULL),"
+                + " sum(title = 'Task ' || id) FROM tasks", null);
+        assertTrue(cursor.moveToFirst());
+        assertEquals("No rows lost", rows, cursor.getLong(0));
+        assertEquals((long) rows * (rows + 1) / 2, cursor.getLong(1));
+        assertEquals(rows / 3, cursor.getLong(2));
+        assertEquals(0, cursor.getLong(3));
+        assertEquals("Only long descriptions leave the row", rows / LONG_EVERY - rows / (LONG_EVERY * NULL_EVERY),
+                cursor.getLong(4));
+        assertEquals("Only deflated descriptions have a preview", rows / LONG_EVERY - rows / (LONG_EVERY * NULL_EVERY),
+                cursor.getLong(5));
+        assertEquals(rows, cursor.getLong(6));
+        cursor.close();
+        assertEquals(rows / LONG_EVERY - rows / (LONG_EVERY * NULL_EVERY),
+                DatabaseUtils.queryNumEntries(db, TaskDbHelper.TABLE_DESCRIPTIONS));
+
+        SqliteTaskStore store = new SqliteTaskStore(dbHelper);
+        assertEquals(TaskStoreContractTest.longText(3_000) + LONG_EVERY, store.get(LONG_EVERY).getDescription());
+        assertEquals("Description " + (rows / 2 + 1), store.get(rows / 2 + 1).getDescription());
+        assertNull(store.get(NULL_EVERY).getDescription());
+        assertTrue(store.query(new int[]{LONG_EVERY}).get(0).isDescriptionPreview());
+    }
+}
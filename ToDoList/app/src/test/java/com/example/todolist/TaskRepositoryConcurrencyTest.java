@@ -0,0 +1,193 @@
+package com.example.todolist;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Many threads reading and writing through one TaskRepository on SQLite: no lost updates, no
+ * stale cached reads, and throughput from 1 to 16 threads
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskRepositoryConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TASKS_PER_THREAD = 64;
+    private static final int OPS_PER_THREAD = 1_500;
+
+    private TaskRepository taskRepository;
+    private int[] ids;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        taskRepository = new TaskRepository(context);
+        ids = new int[THREADS * TASKS_PER_THREAD];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) taskRepository.insertTask(new Task("Task " + i, "Description " + i, "", ""));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        taskRepository.close();
+    }
+
+    /**
+     * Each thread owns the tasks at index % THREADS == thread, so owners are interleaved across
+     * every cache segment. A thread checks each of its own reads against what it last wrote,
+     * and the final rows must match every thread's last write.
+     */
+    @Test
+    public void testNoLostUpdatesWithSixteenThreads() throws InterruptedException {
+        Worker[] workers = new Worker[THREADS];
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        run(workers, THREADS, OPS_PER_THREAD, failures);
+
+        assertTrue(failures.size() + " failures, first: " + failures.peek(), failures.isEmpty());
+        int inserted = 0;
+        int live = 0;
+        for (Worker worker : workers) {
+            inserted += worker.inserted;
+            for (int i = 0; i < worker.done.length; i++) {
+                if (!worker.deleted[i]) {
+                    live++;
+                }
+            }
+        }
+        List<Task> stored = taskRepository.getTasks(ids);
+        assertEquals("Soft deletes must not be lost", live, stored.size());
+        for (Task task : stored) {
+            int index = indexOf(task.getId());
+            Worker owner = workers[index % THREADS];
+            assertEquals("isDone of task " + task.getId(), owner.done[index / THREADS], task.isDone());
+        }
+        assertEquals("Concurrent inserts must all land", live + inserted, taskRepository.getAllTasks().size());
+    }
+
+    @Test
+    public void benchmarkThroughputScaling() throws InterruptedException {
+        Benchmarks.assumeEnabled();
+        int ops = 4_000;
+        double single = 0;
+        for (int threads = 1; threads <= THREADS; threads *= 2) {
+            taskRepository.restoreTasks(ids);
+            taskRepository.updateTasksIsDone(ids, false);
+            Queue<String> failures = new ConcurrentLinkedQueue<>();
+            long nanos = run(new Worker[threads], threads, ops / threads, failures);
+            double perSecond = ops * 1e9 / nanos;
+            if (threads == 1) {
+                single = perSecond;
+            }
+            assertTrue(failures.toString(), failures.isEmpty());
+            Benchmarks.report("TaskRepository x" + threads, "%.0f ops/s, %.2fx of one thread",
+                    perSecond, perSecond / single);
+        }
+    }
+
+    private long run(Worker[] workers, int threads, int ops, Queue<String> failures) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] running = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Worker(t, threads, ops, start, failures);
+            running[t] = new Thread(workers[t], "worker-" + t);
+            running[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : running) {
+            thread.join();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        throw new AssertionError("Unknown id " + id);
+    }
+
+    private final class Worker implements Runnable {
+        final int thread;
+        final int threads;
+        final int ops;
+        final CountDownLatch start;
+        final Queue<String> failures;
+        final boolean[] done;
+        final boolean[] deleted;
+        int inserted;
+
+        Worker(int thread, int threads, int ops, CountDownLatch start, Queue<String> failures) {
+            this.thread = thread;
+            this.threads = threads;
+            this.ops = ops;
+            this.start = start;
+            this.failures = failures;
+            this.done = new boolean[ids.length / threads];
+            this.deleted = new boolean[ids.length / threads];
+        }
+
+        @Override
+        public void run() {
+            Random random = new Random(thread);
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (int op = 0; op < ops; op++) {
+                int slot = random.nextInt(done.length);
+                int id = ids[slot * threads + thread];
+                int choice = random.nextInt(20);
+                if (choice < 6) {
+                    done[slot] = !done[slot];
+                    taskRepository.updateTaskIsDone(id, done[slot]);
+                } else if (choice < 8) {
+                    deleted[slot] = !deleted[slot];
+                    if (deleted[slot]) {
+                        taskRepository.softDeleteTask(id);
+                    } else {
+                        taskRepository.restoreTask(id);
+                    }
+                } else if (choice < 9) {
+                    boolean value = random.nextBoolean();
+                    int[] batch = new int[4];
+                    for (int i = 0; i < batch.length; i++) {
+                        int other = (slot + i) % done.length;
+                        batch[i] = ids[other * threads + thread];
+                        done[other] = value;
+                    }
+                    taskRepository.updateTasksIsDone(batch, value);
+                } else if (choice < 18) {
+                    Task task = taskRepository.getTask(id);
+                    if (deleted[slot] != (task == null)) {
+                        failures.add("Task " + id + " deleted=" + deleted[slot] + " but read " + task);
+                    } else if (task != null && task.isDone() != done[slot]) {
+                        failures.add("Task " + id + " read isDone=" + task.isDone() + " after writing " + done[slot]);
+                    }
+                } else if (choice < 19) {
+                    taskRepository.getTasks(new int[]{ids[random.nextInt(ids.length)], id});
+                } else {
+                    taskRepository.insertTask(new Task("Inserted by " + thread, "", "", ""));
+                    inserted++;
+                }
+            }
+        }
+    }
+}
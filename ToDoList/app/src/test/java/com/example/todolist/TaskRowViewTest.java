@@ -0,0 +1,163 @@
+package com.example.todolist;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+import android.widget.Button;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Touch and accessibility on TaskRowView's painted buttons, with the row attached to a window so
+ * taps outside the buttons reach the row's own click listener
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskRowViewTest {
+
+    private static final int WIDTH = 1080;
+
+    private final List<String> clicks = new ArrayList<>();
+    private TaskRowLayouts rowLayouts;
+    private TaskRowView row;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        TaskRowStyle style = new TaskRowStyle(activity);
+        rowLayouts = new TaskRowLayouts(style);
+        row = new TaskRowView(activity, style, rowLayouts);
+        row.setOnActionListener(new TaskRowView.OnActionListener() {
+            @Override
+            public void onDoneClicked(TaskRowView row) {
+                clicks.add("done");
+            }
+
+            @Override
+            public void onDeleteClicked(TaskRowView row) {
+                clicks.add("delete");
+            }
+        });
+        row.setOnClickListener(v -> clicks.add("row"));
+        activity.setContentView(row, new ViewGroup.LayoutParams(WIDTH, ViewGroup.LayoutParams.WRAP_CONTENT));
+        row.bind(new Task(1, "Title", "Description", "01/01/2024", "1h", false));
+        shadowOf(Looper.getMainLooper()).idle();
+        row.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        row.layout(0, 0, WIDTH, row.getMeasuredHeight());
+    }
+
+    @After
+    public void tearDown() {
+        rowLayouts.shutdown();
+    }
+
+    @Test
+    public void testTapInsideDoneButton() {
+        Rect done = bounds(TaskRowView.TARGET_DONE);
+        tap(done.centerX(), done.centerY());
+
+        assertEquals(Arrays.asList("done"), clicks);
+    }
+
+    @Test
+    public void testTapInsideDeleteButton() {
+        Rect delete = bounds(TaskRowView.TARGET_DELETE);
+        tap(delete.centerX(), delete.centerY());
+
+        assertEquals(Arrays.asList("delete"), clicks);
+    }
+
+    @Test
+    public void testTapOutsideButtonsClicksRow() {
+        Rect done = bounds(TaskRowView.TARGET_DONE);
+        tap(done.left / 2f, row.getHeight() / 2f);
+
+        assertEquals(Arrays.asList("row"), clicks);
+    }
+
+    @Test
+    public void testReleaseOffTheButtonCancelsIt() {
+        Rect done = bounds(TaskRowView.TARGET_DONE);
+        Rect delete = bounds(TaskRowView.TARGET_DELETE);
+
+        send(MotionEvent.ACTION_DOWN, done.centerX(), done.centerY());
+        assertEquals("Held down, the button is drawn pressed", TaskRowView.TARGET_DONE, row.getPressedTarget());
+        send(MotionEvent.ACTION_MOVE, delete.centerX(), delete.centerY());
+        assertEquals("Slid off, it is not", TaskRowView.TARGET_NONE, row.getPressedTarget());
+        send(MotionEvent.ACTION_UP, delete.centerX(), delete.centerY());
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertTrue("Neither button nor row may fire, got " + clicks, clicks.isEmpty());
+        assertEquals(TaskRowView.TARGET_NONE, row.getPressedTarget());
+    }
+
+    @Test
+    public void testButtonsAreAccessibleVirtualViews() {
+        AccessibilityNodeProvider provider = row.getAccessibilityNodeProvider();
+        assertNotNull("The row needs a node provider for its painted buttons", provider);
+
+        AccessibilityNodeInfo done = provider.createAccessibilityNodeInfo(TaskRowView.TARGET_DONE);
+        assertEquals("Mark done", done.getContentDescription().toString());
+        assertEquals(Button.class.getName(), done.getClassName().toString());
+        assertTrue(done.getActionList().contains(AccessibilityNodeInfo.AccessibilityAction.ACTION_CLICK));
+        Rect nodeBounds = new Rect();
+        done.getBoundsInParent(nodeBounds);
+        assertEquals(bounds(TaskRowView.TARGET_DONE), nodeBounds);
+
+        AccessibilityNodeInfo delete = provider.createAccessibilityNodeInfo(TaskRowView.TARGET_DELETE);
+        assertEquals("Delete", delete.getContentDescription().toString());
+
+        assertTrue(provider.performAction(TaskRowView.TARGET_DELETE, AccessibilityNodeInfo.ACTION_CLICK, null));
+        assertTrue(provider.performAction(TaskRowView.TARGET_DONE, AccessibilityNodeInfo.ACTION_CLICK, null));
+        assertEquals(Arrays.asList("delete", "done"), clicks);
+    }
+
+    @Test
+    public void testRowDescribesItsTask() {
+        row.setDone(true);
+        CharSequence description = row.createAccessibilityNodeInfo().getContentDescription();
+
+        assertNotNull(description);
+        assertTrue(description.toString(), description.toString().startsWith("Title, Description"));
+        assertTrue(description.toString(), description.toString().endsWith(", done"));
+        AccessibilityNodeInfo done = row.getAccessibilityNodeProvider().createAccessibilityNodeInfo(TaskRowView.TARGET_DONE);
+        assertEquals("Mark not done", done.getContentDescription().toString());
+    }
+
+    private Rect bounds(int target) {
+        Rect bounds = new Rect();
+        row.getTargetBounds(target, bounds);
+        return bounds;
+    }
+
+    private void tap(float x, float y) {
+        send(MotionEvent.ACTION_DOWN, x, y);
+        send(MotionEvent.ACTION_UP, x, y);
+        // The row's own click is posted rather than run inside the touch event
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private void send(int action, float x, float y) {
+        long now = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(now, now, action, x, y, 0);
+        row.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.todolist;
+
+import android.content.Context;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Throughput of the three TaskStore engines on the same workload: single inserts, single and
+ * batched updates, a full query and a full stream. SQLite runs on Robolectric, so its numbers
+ * are JVM numbers, not device numbers.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskStoreBenchmarkTest {
+
+    private static final int TASKS = 5_000;
+
+    @Test
+    public void benchmarkEngines() throws IOException {
+        Benchmarks.assumeEnabled();
+        Context context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+        File logFile = File.createTempFile("tasks", ".log");
+        logFile.delete();
+        logFile.deleteOnExit();
+
+        run("sqlite", new SqliteTaskStore(new TaskDbHelper(context)));
+        run("memory", new InMemoryTaskStore());
+        run("log", new LogTaskStore(logFile));
+    }
+
+    private static void run(String name, TaskStore store) {
+        int[] ids = new int[TASKS];
+        long insertNanos = Benchmarks.timeNanos(() -> {
+            for (int i = 0; i < TASKS; i++) {
+                ids[i] = (int) store.insert(new Task("Task " + i, "Description " + i, "01/01/2025", "2h"));
+            }
+        });
+        long updateNanos = Benchmarks.timeNanos(() -> {
+            for (int i = 0; i < TASKS; i++) {
+                store.updateDone(new int[]{ids[i]}, true);
+            }
+        });
+        long batchNanos = Benchmarks.timeNanos(() -> store.updateDone(ids, false));
+        int[] loaded = new int[1];
+        long queryNanos = Benchmarks.timeNanos(() -> loaded[0] = store.queryAll().size());
+        long streamNanos = Benchmarks.timeNanos(() -> store.stream(task -> loaded[0]--));
+        store.close();
+
+        assertEquals(0, loaded[0]);
+        Benchmarks.report("TaskStore " + name,
+                "insert %.0f/s, update %.0f/s, batch update %.0f rows/s, queryAll %.0f rows/s, stream %.0f rows/s",
+                perSecond(TASKS, insertNanos), perSecond(TASKS, updateNanos), perSecond(TASKS, batchNanos),
+                perSecond(TASKS, queryNanos), perSecond(TASKS, streamNanos));
+    }
+
+    /**
+     * Mutations per second with 1 and 8 writer threads. Every SQLite mutation is its own
+     * transaction; the log engine group-commits concurrent writers into shared forces.
+     */
+    @Test
+    public void benchmarkConcurrentWriters() throws IOException, InterruptedException {
+        Benchmarks.assumeEnabled();
+        Context context = RuntimeEnvironment.getApplication();
+        for (int threads : new int[]{1, 8}) {
+            context.deleteDatabase(TaskDbHelper.DATABASE_NAME);
+            File logFile = File.createTempFile("tasks", ".log");
+            logFile.delete();
+            logFile.deleteOnExit();
+            LogTaskStore logStore = new LogTaskStore(logFile);
+
+            double sqlite = mutationsPerSecond(new SqliteTaskStore(new TaskDbHelper(context)), threads);
+            double log = mutationsPerSecond(logStore, threads);
+            Benchmarks.report("TaskStore writers x" + threads, "sqlite %.0f/s, log %.0f/s (%.1fx), %d forces",
+                    sqlite, log, log / sqlite, logStore.forceCount());
+        }
+    }
+
+    private static double mutationsPerSecond(TaskStore store, int threads) throws InterruptedException {
+        int perThread = 2_000 / threads;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    int id = (int) store.insert(new Task("Generated " + i, "", "", ""));
+                    store.updateDone(new int[]{id}, true);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long nanos = System.nanoTime() - start;
+        store.close();
+        return perSecond(2 * perThread * threads, nanos);
+    }
+
+    private static double perSecond(int count, long nanos) {
+        return count * 1e9 / Math.max(1, nanos);
+    }
+}
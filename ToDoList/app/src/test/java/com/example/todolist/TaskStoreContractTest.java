@@ -0,0 +1,212 @@
+package com.example.todolist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conformance suite every TaskStore engine must pass; each engine has a subclass that supplies
+ * the store
+ */
+public abstract class TaskStoreContractTest {
+
+    protected TaskStore store;
+
+    protected abstract TaskStore createStore();
+
+    @Before
+    public void setUpStore() {
+        store = createStore();
+    }
+
+    @After
+    public void tearDownStore() {
+        store.close();
+    }
+
+    @Test
+    public void testInsertAndGet() {
+        long first = store.insert(new Task("Write report", "Quarterly numbers", "01/01/2025", "2h"));
+        long second = store.insert(new Task(-1, "Call", null, "", "", true));
+
+        assertTrue(second > first);
+        Task task = store.get((int) first);
+        assertEquals((int) first, task.getId());
+        assertEquals("Write report", task.getTitle());
+        assertEquals("Quarterly numbers", task.getDescription());
+        assertEquals("01/01/2025", task.getDeadline());
+        assertEquals("2h", task.getDuration());
+        assertFalse(task.isDone());
+        assertNull(store.get((int) second).getDescription());
+        assertTrue(store.get((int) second).isDone());
+        assertNull(store.get(12345));
+    }
+
+    @Test
+    public void testReturnedTasksAreCopies() {
+        int id = (int) store.insert(new Task("Copy", "", "", ""));
+        store.get(id).setDone(true);
+        store.queryAll().get(0).setDone(true);
+
+        assertFalse("Modifying a returned Task must not write through", store.get(id).isDone());
+    }
+
+    @Test
+    public void testUpdateDone() {
+        int[] ids = insertTasks(10);
+        store.updateDone(new int[]{ids[2], ids[5], 9999}, true);
+
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i == 2 || i == 5, store.get(ids[i]).isDone());
+        }
+        store.updateDone(new int[]{ids[2]}, false);
+        assertFalse(store.get(ids[2]).isDone());
+    }
+
+    @Test
+    public void testSoftDeleteHidesAndRestores() {
+        int[] ids = insertTasks(5);
+        store.updateDeleted(new int[]{ids[1], ids[3]}, true);
+
+        assertNull(store.get(ids[1]));
+        assertEquals(3, store.queryAll().size());
+        assertEquals(1, store.query(new int[]{ids[0], ids[1]}).size());
+        List<Task> streamed = new ArrayList<>();
+        store.stream(streamed::add);
+        assertEquals(3, streamed.size());
+
+        store.updateDeleted(new int[]{ids[1]}, false);
+        assertEquals("Task 1", store.get(ids[1]).getTitle());
+        assertEquals(4, store.queryAll().size());
+    }
+
+    @Test
+    public void testDeleteAndPurge() {
+        int[] ids = insertTasks(6);
+        store.delete(new int[]{ids[0]});
+        store.updateDeleted(new int[]{ids[1], ids[2]}, true);
+        store.deleteAllDeleted();
+
+        store.updateDeleted(new int[]{ids[1], ids[2]}, false);
+        assertNull(store.get(ids[0]));
+        assertNull("Purged rows cannot be restored", store.get(ids[1]));
+        assertEquals(3, store.queryAll().size());
+    }
+
+    @Test
+    public void testIdsAreNotReused() {
+        int[] ids = insertTasks(3);
+        store.delete(new int[]{ids[2]});
+
+        long next = store.insert(new Task("Next", "", "", ""));
+        assertTrue("Deleted ids must not come back", next > ids[2]);
+    }
+
+    @Test
+    public void testQueryManyIds() {
+        int[] ids = insertTasks(2_500);
+        int[] wanted = Arrays.copyOfRange(ids, 100, 2_200);
+
+        Set<Integer> found = new HashSet<>();
+        for (Task task : store.query(wanted)) {
+            found.add(task.getId());
+        }
+        assertEquals(wanted.length, found.size());
+        assertTrue(found.contains(ids[100]) && found.contains(ids[2_199]));
+    }
+
+    @Test
+    public void testStreamInIdOrder() {
+        insertTasks(200);
+        List<Task> streamed = new ArrayList<>();
+        store.stream(streamed::add);
+        List<Task> all = store.queryAll();
+
+        assertEquals(200, streamed.size());
+        for (int i = 0; i < streamed.size(); i++) {
+            assertEquals(all.get(i).getId(), streamed.get(i).getId());
+            if (i > 0) {
+                assertTrue(streamed.get(i).getId() > streamed.get(i - 1).getId());
+            }
+        }
+    }
+
+    @Test
+    public void testLongDescriptionsRoundTrip() {
+        String[] descriptions = {longText(5_000), longText(300), "", null};
+        int[] ids = new int[descriptions.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) store.insert(new Task("Long " + i, descriptions[i], "", ""));
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(descriptions[i], store.get(ids[i]).getDescription());
+        }
+        List<Task> listed = store.queryAll();
+        listed.addAll(store.query(ids));
+        for (Task task : listed) {
+            String full = descriptions[task.getId() - ids[0]];
+            if (task.isDescriptionPreview()) {
+                assertTrue("A preview must be a prefix", full.startsWith(task.getDescription()));
+                assertTrue(task.getDescription().length() < full.length());
+            } else {
+                assertEquals(full, task.getDescription());
+            }
+        }
+
+        store.delete(new int[]{ids[0]});
+        assertNull(store.get(ids[0]));
+        store.updateDeleted(new int[]{ids[1]}, true);
+        store.deleteAllDeleted();
+        store.updateDeleted(new int[]{ids[1]}, false);
+        assertNull(store.get(ids[1]));
+    }
+
+    @Test
+    public void testConcurrentInsertsGetUniqueIds() throws InterruptedException {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    ids.add(store.insert(new Task("T" + thread + "-" + i, "", "", "")));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1_600, ids.size());
+        assertEquals(1_600, store.queryAll().size());
+    }
+
+    protected int[] insertTasks(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = (int) store.insert(new Task("Task " + i, "Description " + i, "01/01/2025", (i % 8) + "h"));
+        }
+        return ids;
+    }
+
+    /**
+     * Text of roughly this many characters, with some non-ASCII characters
+     */
+    protected static String longText(int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        for (int i = 0; text.length() < length; i++) {
+            text.append(i % 7 == 0 ? "caf\u00e9 " : "word").append(i).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -29,6 +29,14 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests {
+            all {
+                // Benchmarks are skipped unless run with -Pbenchmarks=true
+                it.systemProperty("benchmarks", project.findProperty("benchmarks") ?: "false")
+            }
+        }
+    }
 }
 
 dependencies {
@@ -37,6 +45,8 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    // Installs src/main/baseline-prof.txt on sideloaded builds too
+    implementation(libs.profileinstaller)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
@@ -0,0 +1,72 @@
+package com.example.unitconverter;
+
+/**
+ * Length conversions by spinner position. Factors are looked up by index instead of by unit
+ * name, but a conversion still multiplies by the source factor and then divides by the target
+ * one, so results match the name-based conversion to the last bit (3 mm is 0.3 cm, not
+ * 0.30000000000000004 as a precomputed from/to ratio would give).
+ */
+public final class LengthConverter {
+
+    private final double[] factors;
+
+    private int from;
+    private int to;
+
+    /**
+     * @param factors meters per unit, in spinner order
+     */
+    public LengthConverter(double[] factors) {
+        this.factors = factors.clone();
+    }
+
+    /**
+     * A converter for units named as in R.array.length_units, in that order.
+     */
+    public static LengthConverter forUnits(String[] units) {
+        double[] factors = new double[units.length];
+        for (int i = 0; i < units.length; i++) {
+            factors[i] = metersPer(units[i]);
+        }
+        return new LengthConverter(factors);
+    }
+
+    static double metersPer(String unit) {
+        switch (unit) {
+            case "Meter": return 1.0;
+            case "Kilometer": return 1000.0;
+            case "Centimeter": return 0.01;
+            case "Millimeter": return 0.001;
+            case "Inch": return 0.0254;
+            case "Foot": return 0.3048;
+            default: throw new IllegalArgumentException("Unknown unit: " + unit);
+        }
+    }
+
+    public int getUnitCount() {
+        return factors.length;
+    }
+
+    public void setFrom(int from) {
+        this.from = from;
+    }
+
+    public void setTo(int to) {
+        this.to = to;
+    }
+
+    /**
+     * Converts between the selected units.
+     */
+    public double convert(double value) {
+        return convert(value, from, to);
+    }
+
+    public double convert(double value, int from, int to) {
+        return value * factors[from] / factors[to];
+    }
+
+    public void setFactor(int unit, double factor) {
+        factors[unit] = factor;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.unitconverter;
 
 import android.os.Bundle;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
@@ -9,19 +12,25 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.HashMap;
-
 public class MainActivity extends AppCompatActivity {
 
+    // Startup tracing mode: adb shell am start -n com.example.unitconverter/.MainActivity --ez startup_trace true
+    public static final String EXTRA_STARTUP_TRACE = "startup_trace";
+
     EditText editTextValue, editTextResult;
     Spinner spinnerFrom, spinnerTo;
     Button buttonConvert;
 
-    HashMap<String, Double> unitFactors;
+    // Built on the first conversion; the first frame does not need it
+    private LengthConverter converter;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTrace.setEnabled(getIntent().getBooleanExtra(EXTRA_STARTUP_TRACE, false));
+        long createNanos = StartupTrace.start();
+
+        long startNanos = StartupTrace.begin(StartupTrace.Phase.INFLATE);
         setContentView(R.layout.activity_main);
 
         // Link views
@@ -30,33 +39,29 @@ public class MainActivity extends AppCompatActivity {
         spinnerFrom = findViewById(R.id.spinnerFrom);
         spinnerTo = findViewById(R.id.spinnerTo);
         buttonConvert = findViewById(R.id.buttonConvert);
-
-        // Initialize unit factors
-        unitFactors = new HashMap<>();
-        unitFactors.put("Meter", 1.0);
-        unitFactors.put("Kilometer", 1000.0);
-        unitFactors.put("Centimeter", 0.01);
-        unitFactors.put("Millimeter", 0.001);
-        unitFactors.put("Inch", 0.0254);
-        unitFactors.put("Foot", 0.3048);
+        StartupTrace.end(StartupTrace.Phase.INFLATE, startNanos);
 
         // Set spinner adapter
+        startNanos = StartupTrace.begin(StartupTrace.Phase.SPINNERS);
         ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(
                 this, R.array.length_units, android.R.layout.simple_spinner_item);
         adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
 
         spinnerFrom.setAdapter(adapter);
         spinnerTo.setAdapter(adapter);
+        spinnerFrom.setOnItemSelectedListener(new UnitSelectedListener(true));
+        spinnerTo.setOnItemSelectedListener(new UnitSelectedListener(false));
+        StartupTrace.end(StartupTrace.Phase.SPINNERS, startNanos);
+        if (StartupTrace.isEnabled()) {
+            recordFirstFrame(createNanos);
+        }
 
         // Convert button logic
         buttonConvert.setOnClickListener(view -> {
             String inputStr = editTextValue.getText().toString();
             if (!inputStr.isEmpty()) {
                 double inputValue = Double.parseDouble(inputStr);
-                String fromUnit = spinnerFrom.getSelectedItem().toString();
-                String toUnit = spinnerTo.getSelectedItem().toString();
-
-                double result = convertLength(inputValue, fromUnit, toUnit);
+                double result = converter().convert(inputValue);
                 editTextResult.setText(String.valueOf(result));
             } else {
                 Toast.makeText(MainActivity.this, "Please enter a value", Toast.LENGTH_SHORT).show();
@@ -64,8 +69,53 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    private double convertLength(double value, String from, String to) {
-        double baseValue = value * unitFactors.get(from);
-        return baseValue / unitFactors.get(to);
+    private LengthConverter converter() {
+        if (converter == null) {
+            long startNanos = StartupTrace.begin(StartupTrace.Phase.FACTORS);
+            // Units in spinner order, so a selection maps straight onto its factor
+            converter = LengthConverter.forUnits(getResources().getStringArray(R.array.length_units));
+            converter.setFrom(spinnerFrom.getSelectedItemPosition());
+            converter.setTo(spinnerTo.getSelectedItemPosition());
+            StartupTrace.end(StartupTrace.Phase.FACTORS, startNanos);
+        }
+        return converter;
+    }
+
+    private void recordFirstFrame(long createNanos) {
+        ViewTreeObserver observer = editTextValue.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                StartupTrace.mark(StartupTrace.Phase.FIRST_FRAME, createNanos);
+                editTextValue.getViewTreeObserver().removeOnPreDrawListener(this);
+                return true;
+            }
+        });
+    }
+
+    private class UnitSelectedListener implements AdapterView.OnItemSelectedListener {
+
+        private final boolean isFrom;
+
+        UnitSelectedListener(boolean isFrom) {
+            this.isFrom = isFrom;
+        }
+
+        @Override
+        public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+            if (converter == null) {
+                // converter() reads the selection when it is built
+                return;
+            }
+            if (isFrom) {
+                converter.setFrom(position);
+            } else {
+                converter.setTo(position);
+            }
+        }
+
+        @Override
+        public void onNothingSelected(AdapterView<?> parent) {
+        }
     }
 }
@@ -0,0 +1,78 @@
+package com.example.unitconverter;
+
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.Locale;
+
+/**
+ * Launch phases of MainActivity, timed in startup tracing mode only. A phase run inside one
+ * method is also a trace section, so it shows in a system trace; every phase is logged as it ends.
+ */
+final class StartupTrace {
+
+    private static final String TAG = "StartupTrace";
+
+    enum Phase {
+        INFLATE("startup.inflate"),
+        SPINNERS("startup.spinners"),
+        FIRST_FRAME("startup.firstFrame"),
+        // Deferred until the first conversion
+        FACTORS("startup.factors");
+
+        final String label;
+        volatile long nanos = -1;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static volatile boolean enabled;
+
+    private StartupTrace() {
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean enabled) {
+        StartupTrace.enabled = enabled;
+    }
+
+    /**
+     * Returns a start timestamp for {@link #mark}, or 0 while disabled.
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Opens a trace section for the phase; close it with {@link #end} on the same thread.
+     */
+    static long begin(Phase phase) {
+        if (!enabled) {
+            return 0;
+        }
+        Trace.beginSection(phase.label);
+        return System.nanoTime();
+    }
+
+    static void end(Phase phase, long start) {
+        if (start != 0) {
+            Trace.endSection();
+            mark(phase, start);
+        }
+    }
+
+    /**
+     * Records a phase that spans callbacks, such as the time to the first frame.
+     */
+    static void mark(Phase phase, long start) {
+        if (start != 0) {
+            phase.nanos = System.nanoTime() - start;
+            Log.i(TAG, String.format(Locale.US, "%s %.2fms", phase.label, phase.nanos / 1e6));
+        }
+    }
+}
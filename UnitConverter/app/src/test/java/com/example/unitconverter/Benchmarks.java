@@ -0,0 +1,21 @@
+package com.example.unitconverter;
+
+import org.junit.Assume;
+
+/**
+ * Helpers shared by the benchmark tests. Benchmarks are skipped in the regular test run and are
+ * enabled with {@code ./gradlew test -Pbenchmarks=true}.
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    static void assumeEnabled() {
+        Assume.assumeTrue("Benchmarks run with -Pbenchmarks=true", Boolean.getBoolean("benchmarks"));
+    }
+
+    static void report(String name, String format, Object... args) {
+        System.out.println("[benchmark] " + name + ": " + String.format(format, args));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.unitconverter;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Cost per conversion: factors looked up by unit name against factors looked up by spinner
+ * position
+ */
+public class LengthConverterBenchmarkTest {
+
+    private static final String[] UNITS = {"Meter", "Kilometer", "Centimeter", "Millimeter", "Inch", "Foot"};
+    private static final int CALLS = 5_000_000;
+    private static final int ROUNDS = 5;
+
+    // Keeps the JIT from dropping the work
+    private static double sink;
+
+    @Test
+    public void benchmarkConversionPaths() {
+        Benchmarks.assumeEnabled();
+        Map<String, Double> unitFactors = new HashMap<>();
+        for (int i = 0; i < UNITS.length; i++) {
+            unitFactors.put(UNITS[i], LengthConverterTest.FACTORS[i]);
+        }
+        LengthConverter converter = new LengthConverter(LengthConverterTest.FACTORS);
+
+        Random random = new Random(1);
+        int[] froms = new int[CALLS];
+        int[] tos = new int[CALLS];
+        double[] values = new double[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            froms[i] = random.nextInt(UNITS.length);
+            tos[i] = random.nextInt(UNITS.length);
+            values[i] = random.nextDouble() * 1000;
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+            long start = System.nanoTime();
+            double sum = 0;
+            for (int i = 0; i < CALLS; i++) {
+                sum += values[i] * unitFactors.get(UNITS[froms[i]]) / unitFactors.get(UNITS[tos[i]]);
+            }
+            report(report, "names", start, sum);
+
+            start = System.nanoTime();
+            sum = 0;
+            for (int i = 0; i < CALLS; i++) {
+                sum += converter.convert(values[i], froms[i], tos[i]);
+            }
+            report(report, "indexed", start, sum);
+        }
+    }
+
+    private static void report(boolean report, String name, long startNanos, double sum) {
+        long nanos = System.nanoTime() - startNanos;
+        sink += sum;
+        if (report) {
+            Benchmarks.report("convert." + name, "%.2f ns/call", (double) nanos / CALLS);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.unitconverter;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for conversion by spinner position, which must give exactly what the lookup by unit name
+ * gave
+ */
+public class LengthConverterTest {
+
+    // Spinner order, as in R.array.length_units
+    static final double[] FACTORS = {1.0, 1000.0, 0.01, 0.001, 0.0254, 0.3048};
+    static final int METER = 0, KILOMETER = 1, CENTIMETER = 2, MILLIMETER = 3, INCH = 4, FOOT = 5;
+
+    @Test
+    public void testMatchesNameBasedConversionExactly() {
+        LengthConverter converter = new LengthConverter(FACTORS);
+        double[] values = {3.0, 123.45, 0.1, 7.0, 1e-9, 42_000.5};
+        for (double value : values) {
+            for (int from = 0; from < FACTORS.length; from++) {
+                for (int to = 0; to < FACTORS.length; to++) {
+                    double expected = value * FACTORS[from] / FACTORS[to];
+                    assertEquals(expected, converter.convert(value, from, to), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMillimetersToCentimetersShowsNoRoundingNoise() {
+        LengthConverter converter = new LengthConverter(FACTORS);
+        // Multiplying by a precomputed 0.001 / 0.01 gives 0.30000000000000004
+        assertEquals("0.3", String.valueOf(converter.convert(3.0, MILLIMETER, CENTIMETER)));
+    }
+
+    @Test
+    public void testConvertsSelectedPair() {
+        LengthConverter converter = new LengthConverter(FACTORS);
+        assertEquals(5.0, converter.convert(5.0), 0.0);
+        converter.setFrom(FOOT);
+        converter.setTo(INCH);
+        assertEquals(12.0, converter.convert(1.0), 1e-12);
+        converter.setFrom(KILOMETER);
+        assertEquals(39370.07874, converter.convert(1.0), 0.001);
+        converter.setTo(MILLIMETER);
+        assertEquals(1_000_000.0, converter.convert(1.0), 1e-6);
+    }
+
+    @Test
+    public void testSetFactorChangesConversionsWithThatUnit() {
+        LengthConverter converter = new LengthConverter(FACTORS);
+        converter.setFrom(INCH);
+        converter.setTo(METER);
+        double meterToKilometer = converter.convert(1500.0, METER, KILOMETER);
+
+        // A US survey inch
+        converter.setFactor(INCH, 0.0254000508);
+        assertEquals(0.0254000508, converter.convert(1.0), 1e-15);
+        assertEquals(meterToKilometer, converter.convert(1500.0, METER, KILOMETER), 0.0);
+    }
+
+    @Test
+    public void testForUnitsFollowsSpinnerOrder() {
+        String[] units = {"Meter", "Kilometer", "Centimeter", "Millimeter", "Inch", "Foot"};
+        LengthConverter converter = LengthConverter.forUnits(units);
+        assertEquals(units.length, converter.getUnitCount());
+        for (int from = 0; from < units.length; from++) {
+            for (int to = 0; to < units.length; to++) {
+                assertEquals(FACTORS[from] / FACTORS[to], converter.convert(1.0, from, to), 0.0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownUnit() {
+        LengthConverter.forUnits(new String[]{"Meter", "Furlong"});
+    }
+}
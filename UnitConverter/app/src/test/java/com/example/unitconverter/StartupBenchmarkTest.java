@@ -0,0 +1,54 @@
+package com.example.unitconverter;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+/**
+ * The startup work of MainActivity that runs on the JVM: building the pair table, which launch
+ * now defers to the first conversion, and that first conversion. A phase whose median goes over
+ * its budget fails the run. Inflating the layout and the spinners needs a device; time those
+ * with the startup_trace extra
+ */
+public class StartupBenchmarkTest {
+
+    private static final String[] UNITS = {"Meter", "Kilometer", "Centimeter", "Millimeter", "Inch", "Foot"};
+    private static final int ROUNDS = 10_000;
+
+    // Medians on a desktop JVM are about a microsecond or less; these catch a phase growing by multiples
+    private static final long FACTORS_BUDGET_NANOS = 20_000;
+    private static final long FIRST_CONVERT_BUDGET_NANOS = 5_000;
+
+    @Test
+    public void benchmarkStartupPhases() {
+        Benchmarks.assumeEnabled();
+        long[] factors = new long[ROUNDS];
+        long[] firstConvert = new long[ROUNDS];
+        double sum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            LengthConverter converter = LengthConverter.forUnits(UNITS);
+            converter.setFrom(5);
+            converter.setTo(4);
+            long built = System.nanoTime();
+            sum += converter.convert(round);
+            long converted = System.nanoTime();
+            factors[round] = built - start;
+            firstConvert[round] = converted - built;
+        }
+        assertTrue(sum > 0);
+        check("startup.factors", factors, FACTORS_BUDGET_NANOS);
+        check("startup.firstConvert", firstConvert, FIRST_CONVERT_BUDGET_NANOS);
+    }
+
+    private static void check(String phase, long[] nanos, long budgetNanos) {
+        // The first round includes class loading, as on a real launch
+        long first = nanos[0];
+        Arrays.sort(nanos);
+        long p50 = nanos[nanos.length / 2];
+        Benchmarks.report(phase, "first %d ns, p50 %d ns, p99 %d ns (budget %d ns)",
+                first, p50, nanos[nanos.length * 99 / 100], budgetNanos);
+        assertTrue(phase + " median " + p50 + " ns is over its budget of " + budgetNanos + " ns", p50 <= budgetNanos);
+    }
+}